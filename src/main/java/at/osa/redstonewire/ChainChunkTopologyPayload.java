@@ -0,0 +1,192 @@
+package at.osa.redstonewire;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.core.BlockPos;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.VarInt;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.neoforged.neoforge.network.event.RegisterPayloadHandlersEvent;
+import net.neoforged.neoforge.network.handling.IPayloadContext;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Server-to-client snapshot of all cable connections in one chunk.
+ * <p>
+ * Sent once the player is close enough to the chunk (see ChainTopologySync). The block
+ * entities in the chunk data carry no connections (see RedstoneChainEntity.getUpdateTag()),
+ * so the client does not decode one NBT compound per cabled block. This payload carries all
+ * of them as packed arrays, and the client applies them in one pass over the chunk. Later
+ * changes arrive as ChainTopologyPayload deltas.
+ * <p>
+ * The snapshot replaces all cables the client holds in the chunk. An empty snapshot makes the
+ * client drop them, e.g. when the player moved out of streaming range.
+ * <p>
+ * Wire format: the chunk position as a long, then a VarInt block count. Each block follows:
+ * - Its position inside the chunk: one VarInt for x and z (x | z << 4), then a zigzag VarInt for y
+ * - Its links as written by ChainTopologyPayload.writeOffsets(), relative to the block
+ * <p>
+ * In memory the snapshot is kept as the packed arrays it was built from: the block positions,
+ * the number of links per block, and all links concatenated in block order.
+ *
+ * @param chunkPos   The chunk
+ * @param blocks     Packed positions of the cabled chain blocks
+ * @param linkCounts Number of links per block
+ * @param links      Packed positions of all links, in block order
+ */
+public record ChainChunkTopologyPayload(ChunkPos chunkPos, long[] blocks, int[] linkCounts, long[] links)
+        implements CustomPacketPayload {
+
+    public static final Type<ChainChunkTopologyPayload> TYPE =
+            new Type<>(ResourceLocation.fromNamespaceAndPath(RedstoneWire.MODID, "chain_chunk_topology"));
+
+    public static final StreamCodec<FriendlyByteBuf, ChainChunkTopologyPayload> STREAM_CODEC =
+            StreamCodec.ofMember(ChainChunkTopologyPayload::write, ChainChunkTopologyPayload::read);
+
+    /**
+     * Version of the payload protocol. Clients with a different version cannot connect.
+     */
+    private static final String PROTOCOL_VERSION = "1";
+
+    @Override
+    public Type<ChainChunkTopologyPayload> type() {
+        return TYPE;
+    }
+
+    /**
+     * Collects the connections of every cabled chain block in a chunk.
+     *
+     * @param chunk The chunk
+     * @return The snapshot, or null if the chunk has no cables
+     */
+    @Nullable
+    public static ChainChunkTopologyPayload of(LevelChunk chunk) {
+        LongArrayList blocks = new LongArrayList();
+        IntArrayList linkCounts = new IntArrayList();
+        LongArrayList links = new LongArrayList();
+        for (BlockEntity blockEntity : chunk.getBlockEntities().values()) {
+            if (!(blockEntity instanceof RedstoneChainEntity chain) || chain.getConnections().isEmpty()) continue;
+
+            blocks.add(chain.getBlockPos().asLong());
+            linkCounts.add(chain.getConnections().size());
+            for (BlockPos link : chain.getConnections()) {
+                links.add(link.asLong());
+            }
+        }
+        if (blocks.isEmpty()) return null;
+        return new ChainChunkTopologyPayload(chunk.getPos(), blocks.toLongArray(), linkCounts.toIntArray(), links.toLongArray());
+    }
+
+    /**
+     * Returns a snapshot without cables, telling the client to drop the cables of the chunk.
+     */
+    public static ChainChunkTopologyPayload empty(ChunkPos chunkPos) {
+        return new ChainChunkTopologyPayload(chunkPos, new long[0], new int[0], new long[0]);
+    }
+
+    /**
+     * Returns the approximate encoded size in bytes, for the streaming budget.
+     * Assumes short cables (one byte per offset component).
+     */
+    public int estimatedSize() {
+        return 9 + blocks.length * 4 + links.length * 3;
+    }
+
+    // ===== Registration =====
+
+    /**
+     * Registers the payload. Listener on the mod event bus.
+     */
+    public static void register(RegisterPayloadHandlersEvent event) {
+        event.registrar(PROTOCOL_VERSION).playToClient(TYPE, STREAM_CODEC, ChainChunkTopologyPayload::handle);
+    }
+
+    /**
+     * Applies the snapshot on the client (handlers run on the main thread).
+     * The chunk is resolved once. All cables in the chunk are dropped first, then the
+     * snapshot is applied; blocks without a block entity on the client are skipped.
+     */
+    private static void handle(ChainChunkTopologyPayload payload, IPayloadContext context) {
+        Level level = context.player().level();
+        if (!level.hasChunk(payload.chunkPos().x, payload.chunkPos().z)) return;
+        LevelChunk chunk = level.getChunk(payload.chunkPos().x, payload.chunkPos().z);
+        ChainTopologyPayload.dropPending(level, payload.chunkPos());
+        for (BlockEntity blockEntity : chunk.getBlockEntities().values()) {
+            if (blockEntity instanceof RedstoneChainEntity chain) {
+                chain.setConnectionsFromServer(List.of());
+            }
+        }
+
+        int offset = 0;
+        for (int i = 0; i < payload.blocks().length; i++) {
+            int count = payload.linkCounts()[i];
+            BlockPos pos = BlockPos.of(payload.blocks()[i]);
+            if (chunk.getBlockEntity(pos, LevelChunk.EntityCreationType.CHECK) instanceof RedstoneChainEntity chain) {
+                List<BlockPos> connections = new ArrayList<>(count);
+                for (int j = offset; j < offset + count; j++) {
+                    connections.add(BlockPos.of(payload.links()[j]));
+                }
+                chain.setConnectionsFromServer(connections);
+            }
+            offset += count;
+        }
+    }
+
+    // ===== Encoding =====
+
+    private void write(FriendlyByteBuf buf) {
+        buf.writeLong(chunkPos.toLong());
+        VarInt.write(buf, blocks.length);
+
+        int offset = 0;
+        for (int i = 0; i < blocks.length; i++) {
+            BlockPos pos = BlockPos.of(blocks[i]);
+            VarInt.write(buf, (pos.getX() & 15) | (pos.getZ() & 15) << 4);
+            VarInt.write(buf, ChainTopologyPayload.zigzag(pos.getY()));
+
+            // Same layout as ChainTopologyPayload.writeOffsets(), straight from the packed links
+            VarInt.write(buf, linkCounts[i]);
+            for (int j = offset; j < offset + linkCounts[i]; j++) {
+                VarInt.write(buf, ChainTopologyPayload.zigzag(BlockPos.getX(links[j]) - pos.getX()));
+                VarInt.write(buf, ChainTopologyPayload.zigzag(BlockPos.getY(links[j]) - pos.getY()));
+                VarInt.write(buf, ChainTopologyPayload.zigzag(BlockPos.getZ(links[j]) - pos.getZ()));
+            }
+            offset += linkCounts[i];
+        }
+    }
+
+    private static ChainChunkTopologyPayload read(FriendlyByteBuf buf) {
+        ChunkPos chunkPos = new ChunkPos(buf.readLong());
+        int count = VarInt.read(buf);
+        // Every block takes at least 3 bytes; reject counts the buffer cannot hold
+        if (count < 0 || count > buf.readableBytes() / 3) {
+            throw new IllegalArgumentException("Invalid block count in chain chunk topology payload: " + count);
+        }
+
+        long[] blocks = new long[count];
+        int[] linkCounts = new int[count];
+        LongArrayList links = new LongArrayList();
+        for (int i = 0; i < count; i++) {
+            int xz = VarInt.read(buf);
+            int y = ChainTopologyPayload.unzigzag(VarInt.read(buf));
+            BlockPos pos = new BlockPos(chunkPos.getMinBlockX() + (xz & 15), y, chunkPos.getMinBlockZ() + (xz >> 4 & 15));
+
+            List<BlockPos> blockLinks = ChainTopologyPayload.readOffsets(buf, pos);
+            blocks[i] = pos.asLong();
+            linkCounts[i] = blockLinks.size();
+            for (BlockPos link : blockLinks) {
+                links.add(link.asLong());
+            }
+        }
+        return new ChainChunkTopologyPayload(chunkPos, blocks, linkCounts, links.toLongArray());
+    }
+}
@@ -0,0 +1,418 @@
+package at.osa.redstonewire;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.core.BlockPos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * Disjoint-set (union-find) connectivity engine for redstone chain networks.
+ * <p>
+ * Every chain block is a node, identified by its packed position (BlockPos.asLong()).
+ * Nodes of the same network share one root; the root carries the network's ChainNetwork.
+ * <p>
+ * Complexity:
+ * - find() uses path compression and union() uses union-by-size, so both run in
+ *   near-constant time O(α(N))
+ * - Members of a network form a circular doubly linked list. Linking two networks splices
+ *   both lists in O(1), so nothing proportional to the network size is done on a merge
+ * <p>
+ * Union-find cannot undo a union, so removed edges are handled by findDetachedSide(): a
+ * bidirectional search that only explores as far as the smaller side, followed by split()
+ * which moves just the detached nodes into a new set.
+ * <p>
+ * Removing a node unlinks it from its member list and leaves a tombstone slot behind, since
+ * other nodes may still point through it. Tombstones are compacted once they outnumber the
+ * live nodes, which renumbers the slots - node indices must not be kept across a remove().
+ */
+public class ChainGraph {
+
+    /**
+     * Index returned for positions that are not part of the graph.
+     */
+    public static final int NONE = -1;
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int MIN_TOMBSTONES_FOR_COMPACTION = 64;
+
+    private Long2IntOpenHashMap indexByPos = new Long2IntOpenHashMap();
+
+    // Per-slot data, indexed by node index
+    private long[] positions = new long[INITIAL_CAPACITY];
+    private int[] parent = new int[INITIAL_CAPACITY];
+    private int[] size = new int[INITIAL_CAPACITY];      // live member count, valid at roots only
+    private int[] next = new int[INITIAL_CAPACITY];      // circular member list
+    private int[] prev = new int[INITIAL_CAPACITY];
+    private ChainNetwork[] networks = new ChainNetwork[INITIAL_CAPACITY]; // valid at roots only
+
+    private int slotCount = 0;
+    private int tombstones = 0;
+
+    public ChainGraph() {
+        indexByPos.defaultReturnValue(NONE);
+    }
+
+    // ===== Queries =====
+
+    public int indexOf(long pos) {
+        return indexByPos.get(pos);
+    }
+
+    public boolean contains(long pos) {
+        return indexByPos.containsKey(pos);
+    }
+
+    /**
+     * Finds the root of the set containing the given node, compressing the path on the way.
+     *
+     * @param index Node index
+     * @return Index of the root node
+     */
+    public int find(int index) {
+        int root = index;
+        while (parent[root] != root) {
+            root = parent[root];
+        }
+        // Path compression: point every node on the path directly at the root
+        while (parent[index] != root) {
+            int up = parent[index];
+            parent[index] = root;
+            index = up;
+        }
+        return root;
+    }
+
+    /**
+     * Returns the network the given position belongs to.
+     *
+     * @param pos Packed block position
+     * @return The network, or null if the position is not in the graph
+     */
+    public ChainNetwork networkOf(long pos) {
+        int index = indexOf(pos);
+        return index == NONE ? null : networks[find(index)];
+    }
+
+    /**
+     * Calls the consumer with the packed position of every member of a network.
+     * Cost is proportional to the network size.
+     *
+     * @param index    Any node of the network
+     * @param consumer Receives packed member positions
+     */
+    public void forEachMember(int index, LongConsumer consumer) {
+        int current = index;
+        do {
+            consumer.accept(positions[current]);
+            current = next[current];
+        } while (current != index);
+    }
+
+    /**
+     * Returns a snapshot of all members of the network containing the given position.
+     *
+     * @param pos Packed block position of any member
+     * @return The members, or an empty list if the position is not in the graph
+     */
+    public List<BlockPos> members(long pos) {
+        int index = indexOf(pos);
+        if (index == NONE) return List.of();
+
+        List<BlockPos> result = new ArrayList<>(size[find(index)]);
+        forEachMember(index, member -> result.add(BlockPos.of(member)));
+        return result;
+    }
+
+    /**
+     * Visits every network in the graph once, together with the packed position of one
+     * of its live members. The visitor must not modify the graph.
+     */
+    @FunctionalInterface
+    public interface NetworkVisitor {
+        void visit(ChainNetwork network, long memberPos);
+    }
+
+    public void forEachNetwork(NetworkVisitor visitor) {
+        ReferenceOpenHashSet<ChainNetwork> seen = new ReferenceOpenHashSet<>();
+        for (int index = 0; index < slotCount; index++) {
+            if (indexByPos.get(positions[index]) != index) continue; // tombstone
+
+            ChainNetwork network = networks[find(index)];
+            if (seen.add(network)) {
+                visitor.visit(network, positions[index]);
+            }
+        }
+    }
+
+    // ===== Mutations =====
+
+    /**
+     * Adds a position as a single-node set.
+     *
+     * @param pos     Packed block position
+     * @param network The network of the new single-node set, or null if the node is
+     *                about to be united with an existing set
+     * @return The node index, or the existing index if the position was already present
+     */
+    public int add(long pos, ChainNetwork network) {
+        int existing = indexOf(pos);
+        if (existing != NONE) return existing;
+
+        ensureCapacity(slotCount + 1);
+        int index = slotCount++;
+        positions[index] = pos;
+        parent[index] = index;
+        size[index] = 1;
+        next[index] = index;
+        prev[index] = index;
+        networks[index] = network;
+        indexByPos.put(pos, index);
+        return index;
+    }
+
+    /**
+     * Merges the sets containing the two nodes (union-by-size).
+     * <p>
+     * The smaller set is attached below the larger set's root, the member lists are spliced
+     * together and the larger network absorbs the smaller one's state. Sets that share the
+     * same network (e.g. while a component is built up node by node) or that have no
+     * network yet simply keep the other set's network.
+     *
+     * @param a Node index of the first node (must be a live node)
+     * @param b Node index of the second node (must be a live node)
+     * @return Root index of the merged set
+     */
+    public int union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA == rootB) return rootA;
+
+        if (size[rootA] < size[rootB]) {
+            int swap = rootA;
+            rootA = rootB;
+            rootB = swap;
+        }
+
+        parent[rootB] = rootA;
+        size[rootA] += size[rootB];
+
+        // Splice the two circular member lists. The live nodes a and b are used as splice
+        // points because a root may be a tombstone that is no longer part of its list.
+        int nextA = next[a];
+        int nextB = next[b];
+        next[a] = nextB;
+        prev[nextB] = a;
+        next[b] = nextA;
+        prev[nextA] = b;
+
+        ChainNetwork kept = networks[rootA];
+        ChainNetwork merged = networks[rootB];
+        if (kept == null) {
+            kept = merged;
+        } else if (merged != null && merged != kept) {
+            kept.absorb(merged);
+        }
+        networks[rootA] = kept;
+        networks[rootB] = null;
+        return rootA;
+    }
+
+    /**
+     * Removes a position from the graph.
+     * <p>
+     * The node is unlinked from its member list in O(1). Its slot stays behind as a
+     * tombstone because other nodes may still point through it on their path to the root.
+     *
+     * @param pos Packed block position
+     * @return The network the position belonged to, or null if it was not in the graph
+     */
+    public ChainNetwork remove(long pos) {
+        int index = indexByPos.remove(pos);
+        if (index == NONE) return null;
+
+        int root = find(index);
+        ChainNetwork network = networks[root];
+
+        next[prev[index]] = next[index];
+        prev[next[index]] = prev[index];
+        next[index] = index;
+        prev[index] = index;
+        size[root]--;
+        tombstones++;
+
+        // A tombstoned root stays the root of its tree, so its network stays reachable
+        if (size[root] == 0) {
+            networks[root] = null;
+        }
+
+        compactIfNeeded();
+        return network;
+    }
+
+    /**
+     * Assigns a new network to the set containing the given node.
+     *
+     * @param index   Any node of the set
+     * @param network The network that owns the set from now on
+     */
+    public void setNetwork(int index, ChainNetwork network) {
+        networks[find(index)] = network;
+    }
+
+    // ===== Split detection =====
+
+    /**
+     * Supplies the neighbors of a node, e.g. from the cable connections stored in the world.
+     */
+    @FunctionalInterface
+    public interface NeighborSource {
+        void forEachNeighbor(long pos, LongConsumer consumer);
+    }
+
+    /**
+     * Checks whether two nodes of the same set are still connected after an edge was removed.
+     * <p>
+     * Runs a breadth-first search from both nodes at once, always expanding the side that has
+     * seen fewer nodes so far. The search stops as soon as:
+     * - One side reaches a node seen by the other side: still connected, nothing to do
+     * - One side runs out of nodes to expand: that side is a complete component of its own
+     * <p>
+     * Both sides grow at the same pace, so the cost is proportional to the smaller side,
+     * not to the whole network.
+     *
+     * @param a         Packed position of the first node
+     * @param b         Packed position of the second node
+     * @param neighbors Supplies the current edges of each node
+     * @return The nodes of the side that became disconnected, or null if still connected
+     */
+    public LongSet findDetachedSide(long a, long b, NeighborSource neighbors) {
+        LongOpenHashSet seenA = new LongOpenHashSet();
+        LongOpenHashSet seenB = new LongOpenHashSet();
+        LongArrayFIFOQueue queueA = new LongArrayFIFOQueue();
+        LongArrayFIFOQueue queueB = new LongArrayFIFOQueue();
+        seenA.add(a);
+        seenB.add(b);
+        queueA.enqueue(a);
+        queueB.enqueue(b);
+
+        boolean[] met = {false};
+        while (true) {
+            if (queueA.isEmpty()) return seenA;
+            if (queueB.isEmpty()) return seenB;
+
+            boolean expandA = seenA.size() <= seenB.size();
+            LongOpenHashSet seen = expandA ? seenA : seenB;
+            LongOpenHashSet other = expandA ? seenB : seenA;
+            LongArrayFIFOQueue queue = expandA ? queueA : queueB;
+
+            neighbors.forEachNeighbor(queue.dequeueLong(), neighbor -> {
+                if (met[0] || !contains(neighbor)) return;
+                if (other.contains(neighbor)) {
+                    met[0] = true;
+                } else if (seen.add(neighbor)) {
+                    queue.enqueue(neighbor);
+                }
+            });
+            if (met[0]) return null;
+        }
+    }
+
+    /**
+     * Moves the given nodes out of their current set into a new set owned by the given network.
+     * Cost is proportional to the number of moved nodes.
+     *
+     * @param nodes   Packed positions of the nodes to move (a complete component)
+     * @param network The network that owns the new set
+     */
+    public void split(LongSet nodes, ChainNetwork network) {
+        for (LongIterator it = nodes.iterator(); it.hasNext(); ) {
+            remove(it.nextLong());
+        }
+
+        int root = NONE;
+        for (LongIterator it = nodes.iterator(); it.hasNext(); ) {
+            int index = add(it.nextLong(), network);
+            root = root == NONE ? index : union(root, index);
+        }
+    }
+
+    // ===== Internals =====
+
+    private void ensureCapacity(int required) {
+        if (required <= positions.length) return;
+
+        int capacity = Math.max(required, positions.length * 2);
+        positions = Arrays.copyOf(positions, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        size = Arrays.copyOf(size, capacity);
+        next = Arrays.copyOf(next, capacity);
+        prev = Arrays.copyOf(prev, capacity);
+        networks = Arrays.copyOf(networks, capacity);
+    }
+
+    /**
+     * Rebuilds the slot arrays without tombstones once they outnumber the live nodes.
+     * Each set is rebuilt as a flat tree (every member points straight at its root).
+     */
+    private void compactIfNeeded() {
+        int live = indexByPos.size();
+        if (tombstones < MIN_TOMBSTONES_FOR_COMPACTION || tombstones <= live) return;
+
+        int capacity = Math.max(INITIAL_CAPACITY, live * 2);
+        long[] newPositions = new long[capacity];
+        int[] newParent = new int[capacity];
+        int[] newSize = new int[capacity];
+        int[] newNext = new int[capacity];
+        int[] newPrev = new int[capacity];
+        ChainNetwork[] newNetworks = new ChainNetwork[capacity];
+
+        Long2IntOpenHashMap newIndexByPos = new Long2IntOpenHashMap(live);
+        newIndexByPos.defaultReturnValue(NONE);
+        int newCount = 0;
+
+        for (int oldIndex = 0; oldIndex < slotCount; oldIndex++) {
+            // Sets without a network yet (nodes added by a join that is still in progress) are
+            // kept as well; only tombstones are dropped
+            if (newIndexByPos.containsKey(positions[oldIndex])) continue;
+            if (indexByPos.get(positions[oldIndex]) != oldIndex) continue; // tombstone
+            int oldRoot = find(oldIndex);
+
+            // First live member of a set seen: copy the whole set in member-list order
+            int newRoot = newCount;
+            int current = oldIndex;
+            do {
+                int newIndex = newCount++;
+                newPositions[newIndex] = positions[current];
+                newParent[newIndex] = newRoot;
+                newNext[newIndex] = newIndex + 1;
+                newPrev[newIndex] = newIndex - 1;
+                newIndexByPos.put(positions[current], newIndex);
+                current = next[current];
+            } while (current != oldIndex);
+
+            int last = newCount - 1;
+            newNext[last] = newRoot;
+            newPrev[newRoot] = last;
+            newSize[newRoot] = newCount - newRoot;
+            newNetworks[newRoot] = networks[oldRoot];
+        }
+
+        positions = newPositions;
+        parent = newParent;
+        size = newSize;
+        next = newNext;
+        prev = newPrev;
+        networks = newNetworks;
+        indexByPos = newIndexByPos;
+        slotCount = newCount;
+        tombstones = 0;
+    }
+}
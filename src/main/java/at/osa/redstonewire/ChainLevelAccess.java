@@ -0,0 +1,187 @@
+package at.osa.redstonewire;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.core.SectionPos;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Traversal-scoped, chunk-cached read access to a level.
+ * <p>
+ * Every level.getBlockState() / level.getBlockEntity() call looks the chunk up in the chunk
+ * map again. Network passes read thousands of blocks that sit in a handful of chunks, so
+ * this accessor resolves each chunk (and each chunk section) once and keeps the reference
+ * for the rest of the pass. Consecutive reads in the same section skip the map entirely.
+ * <p>
+ * Unloaded chunks are never loaded: they read as air without a block entity.
+ * <p>
+ * Create one instance per pass and drop it afterwards - the cached references must not
+ * outlive the tick, since chunks may unload between ticks. Writes still go through the
+ * level (see getLevel()); sections are updated in place, so reads after a write see it.
+ */
+public final class ChainLevelAccess {
+
+    private static final BlockState AIR = Blocks.AIR.defaultBlockState();
+
+    private final Level level;
+
+    /**
+     * Whether chunks and sections are cached; false only for the uncached() baseline.
+     */
+    private final boolean cached;
+
+    /**
+     * Loaded chunks by ChunkPos key. Unloaded chunks are cached as null.
+     */
+    private final Long2ObjectOpenHashMap<LevelChunk> chunks = new Long2ObjectOpenHashMap<>();
+
+    /**
+     * Sections by SectionPos key. Missing (unloaded or out of height) sections are cached as null.
+     */
+    private final Long2ObjectOpenHashMap<LevelChunkSection> sections = new Long2ObjectOpenHashMap<>();
+
+    // Last section used, so runs of reads in one section skip the map
+    private long lastSectionKey = Long.MIN_VALUE;
+    @Nullable
+    private LevelChunkSection lastSection;
+
+    public ChainLevelAccess(Level level) {
+        this(level, true);
+    }
+
+    private ChainLevelAccess(Level level, boolean cached) {
+        this.level = level;
+        this.cached = cached;
+    }
+
+    /**
+     * Returns an accessor that looks the chunk up again on every read, like the level does.
+     * Only the baseline of ChainNetworkManager.timePasses() uses it.
+     */
+    static ChainLevelAccess uncached(Level level) {
+        return new ChainLevelAccess(level, false);
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Returns the block state at a packed position, or air if its chunk is not loaded.
+     *
+     * @param pos Packed block position (BlockPos.asLong())
+     */
+    public BlockState getBlockState(long pos) {
+        int x = BlockPos.getX(pos);
+        int y = BlockPos.getY(pos);
+        int z = BlockPos.getZ(pos);
+        LevelChunkSection section = getSection(x, y, z);
+        if (section == null || section.hasOnlyAir()) {
+            return AIR;
+        }
+        return section.getBlockState(x & 15, y & 15, z & 15);
+    }
+
+    public BlockState getBlockState(BlockPos pos) {
+        return getBlockState(pos.asLong());
+    }
+
+    /**
+     * Returns the block entity at a packed position, or null if there is none or its chunk
+     * is not loaded. Missing block entities are never created by a read.
+     *
+     * @param pos Packed block position (BlockPos.asLong())
+     */
+    @Nullable
+    public BlockEntity getBlockEntity(long pos) {
+        LevelChunk chunk = getChunk(SectionPos.blockToSectionCoord(BlockPos.getX(pos)),
+                SectionPos.blockToSectionCoord(BlockPos.getZ(pos)));
+        return chunk == null ? null : chunk.getBlockEntity(BlockPos.of(pos), LevelChunk.EntityCreationType.CHECK);
+    }
+
+    /**
+     * Returns the redstone signal a neighbor provides towards a block.
+     * <p>
+     * Signals depend on the neighbor's own surroundings (e.g. powered solid blocks), so this
+     * delegates to the level; air is answered from the cache without a level lookup.
+     *
+     * @param neighborPos Position of the signal source
+     * @param direction   Direction as expected by Level.getSignal()
+     */
+    public int getSignal(BlockPos neighborPos, Direction direction) {
+        if (getBlockState(neighborPos).isAir()) {
+            return 0;
+        }
+        return level.getSignal(neighborPos, direction);
+    }
+
+    /**
+     * Checks whether the chunk containing a packed position is loaded.
+     */
+    public boolean isLoaded(long pos) {
+        return getChunk(SectionPos.blockToSectionCoord(BlockPos.getX(pos)),
+                SectionPos.blockToSectionCoord(BlockPos.getZ(pos))) != null;
+    }
+
+    /**
+     * Checks whether a chunk is loaded.
+     *
+     * @param chunkKey ChunkPos key (ChunkPos.toLong())
+     */
+    public boolean isChunkLoaded(long chunkKey) {
+        return getChunk(ChunkPos.getX(chunkKey), ChunkPos.getZ(chunkKey)) != null;
+    }
+
+    @Nullable
+    private LevelChunkSection getSection(int x, int y, int z) {
+        if (!cached) {
+            LevelChunk chunk = getChunk(x >> 4, z >> 4);
+            return chunk == null || level.isOutsideBuildHeight(y) ? null : chunk.getSection(chunk.getSectionIndex(y));
+        }
+
+        long key = SectionPos.asLong(x >> 4, y >> 4, z >> 4);
+        if (key == lastSectionKey) {
+            return lastSection;
+        }
+
+        LevelChunkSection section;
+        if (sections.containsKey(key)) {
+            section = sections.get(key);
+        } else {
+            section = null;
+            LevelChunk chunk = getChunk(x >> 4, z >> 4);
+            if (chunk != null && !level.isOutsideBuildHeight(y)) {
+                section = chunk.getSection(chunk.getSectionIndex(y));
+            }
+            sections.put(key, section);
+        }
+
+        lastSectionKey = key;
+        lastSection = section;
+        return section;
+    }
+
+    @Nullable
+    private LevelChunk getChunk(int chunkX, int chunkZ) {
+        if (!cached) {
+            return level.getChunkSource().getChunkNow(chunkX, chunkZ);
+        }
+
+        long key = ChunkPos.asLong(chunkX, chunkZ);
+        if (chunks.containsKey(key)) {
+            return chunks.get(key);
+        }
+        // getChunkNow never loads or generates a chunk
+        LevelChunk chunk = level.getChunkSource().getChunkNow(chunkX, chunkZ);
+        chunks.put(key, chunk);
+        return chunk;
+    }
+}
@@ -0,0 +1,592 @@
+package at.osa.redstonewire;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.RedStoneWireBlock;
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Shared state of one redstone chain network.
+ * <p>
+ * Exactly one instance exists per connected component in a level's ChainGraph.
+ * When two networks are linked, the smaller network is absorbed by the larger one
+ * and its state is folded in via absorb().
+ * <p>
+ * The network itself is the controller of its members: it is evaluated once per update
+ * (see evaluate()) by the ChainNetworkManager, instead of every member recomputing the
+ * whole network on its own.
+ */
+public class ChainNetwork {
+
+    /**
+     * Stable identifier handed out by the ChainNetworkManager.
+     */
+    private final int id;
+
+    /**
+     * True when the structure changed and the network must be rebuilt from its cable
+     * connections before it is used again.
+     */
+    private boolean dirty;
+
+    /**
+     * True while the network waits in the manager's end-of-tick update queue.
+     * Further triggers in the same tick are coalesced into that one evaluation.
+     */
+    private boolean queued;
+
+    // ===== Dormancy =====
+    /**
+     * True while the network takes part in the periodic validation.
+     * Dormant networks (awake == false) are skipped until something wakes them.
+     */
+    private boolean awake;
+
+    /**
+     * The member position this network is scheduled under in the manager's ValidationWheel.
+     * Only meaningful while awake; wheel entries under any other position are stale.
+     */
+    private long awakeAnchor;
+
+    /**
+     * Number of consecutive periodic validations that found nothing to change.
+     */
+    private int quietValidations = 0;
+
+    // ===== Feedback Loop Protection =====
+    /**
+     * Prevents recursive evaluation that could cause infinite loops.
+     * Set to true during evaluate(), cleared in finally block.
+     */
+    private boolean isUpdating = false;
+
+    // ===== Signal Management =====
+    /**
+     * Number of evaluations that have passed with no external power input.
+     * Used to delay signal loss and prevent flickering.
+     */
+    private int ticksWithoutInput = 0;
+
+    /**
+     * The last known input signal strength from external sources.
+     * Cached to maintain signal briefly after input is lost.
+     */
+    private int cachedInputSignal = 0;
+
+    /**
+     * The signal last written to all members, or -1 if the members may disagree
+     * (new network, merge, silently changed inputs). Applying is skipped while it matches
+     * cachedInputSignal, so an input change that does not change the output costs O(1).
+     */
+    private int appliedSignal = -1;
+
+    // ===== Input Face Index =====
+    /**
+     * Number of bits used per face in a packed face value.
+     * Layout per face: bit 4 = input-capable flag, bits 0-3 = last known strength.
+     * Face d occupies bits [d * 5, d * 5 + 5) with d = Direction.get3DDataValue().
+     */
+    private static final int FACE_BITS = 5;
+    private static final int FACE_MASK = 0x1F;
+    private static final int INPUT_FLAG = 0x10;
+    private static final int STRENGTH_MASK = 0x0F;
+
+    /**
+     * Input-capable faces of the network members: packed member position to the packed
+     * face values of that member (see FACE_BITS).
+     * <p>
+     * Only members that touch an external signal source have an entry, so a long cable
+     * running through air or stone costs nothing to evaluate.
+     */
+    private Long2IntOpenHashMap inputFaces = new Long2IntOpenHashMap();
+
+    /**
+     * Histogram of the indexed input faces: strengthCounts[s] is the number of input faces
+     * currently providing strength s. Together with maxInput this keeps the network input
+     * current in O(1) per face change, without rescanning any faces.
+     */
+    private final int[] strengthCounts = new int[16];
+
+    /**
+     * Highest strength with a non-zero count in strengthCounts.
+     */
+    private int maxInput = 0;
+
+    ChainNetwork(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    void markDirty() {
+        dirty = true;
+    }
+
+    boolean isQueued() {
+        return queued;
+    }
+
+    void setQueued(boolean queued) {
+        this.queued = queued;
+    }
+
+    boolean isAwake() {
+        return awake;
+    }
+
+    /**
+     * Checks whether the network is awake and scheduled under the given member position.
+     *
+     * @param anchor Packed member position
+     */
+    boolean isAwakeAt(long anchor) {
+        return awake && awakeAnchor == anchor;
+    }
+
+    long getAwakeAnchor() {
+        return awakeAnchor;
+    }
+
+    /**
+     * Wakes the network: it takes part in the periodic validation again and has to stay
+     * quiet for the full DORMANT_AFTER_VALIDATIONS period before going dormant.
+     *
+     * @param anchor Packed member position to schedule the network under
+     * @return true if the network was dormant and must be scheduled by the caller
+     */
+    boolean wake(long anchor) {
+        quietValidations = 0;
+        if (awake) return false;
+        awake = true;
+        awakeAnchor = anchor;
+        return true;
+    }
+
+    /**
+     * Takes the network out of the periodic validation, e.g. because its anchor left the network.
+     * It is scheduled again the next time it is woken.
+     */
+    void sleep() {
+        awake = false;
+    }
+
+    /**
+     * Checks whether the distributed signal matches the input and no signal loss delay is
+     * still counting down.
+     */
+    boolean isSettled() {
+        return cachedInputSignal == maxInput && appliedSignal == cachedInputSignal;
+    }
+
+    /**
+     * Records the result of a periodic validation and decides whether the network goes dormant.
+     * <p>
+     * A network only goes dormant once it is settled: the distributed signal matches its
+     * input and no signal loss delay is still counting down.
+     *
+     * @param inputsChanged Whether the validation found input faces that changed silently
+     * @return true if the network went dormant
+     */
+    boolean recordValidation(boolean inputsChanged) {
+        if (inputsChanged || !isSettled()) {
+            quietValidations = 0;
+            return false;
+        }
+
+        quietValidations++;
+        if (quietValidations >= Config.DORMANT_AFTER_VALIDATIONS.getAsInt()) {
+            awake = false;
+            return true;
+        }
+        return false;
+    }
+
+    int getTicksWithoutInput() {
+        return ticksWithoutInput;
+    }
+
+    int getAppliedSignal() {
+        return appliedSignal;
+    }
+
+    /**
+     * Restores the signal state saved with the level (see ChainNetworkManager.save()).
+     * Out-of-range values are clamped, so a damaged file cannot produce an invalid power level.
+     *
+     * @param cachedInputSignal Distributed signal strength
+     * @param ticksWithoutInput Progress of the signal loss delay
+     * @param appliedSignal     Signal last written to all members, or -1 if unknown
+     */
+    void restoreSignalState(int cachedInputSignal, int ticksWithoutInput, int appliedSignal) {
+        this.cachedInputSignal = Math.clamp(cachedInputSignal, 0, 15);
+        this.ticksWithoutInput = Math.max(0, ticksWithoutInput);
+        this.appliedSignal = Math.clamp(appliedSignal, -1, 15);
+    }
+
+    /**
+     * Forces the next evaluation to write the network's power into all members, e.g. because
+     * a member joined or loaded that may still carry an old power level.
+     */
+    void markMembersStale() {
+        appliedSignal = -1;
+    }
+
+    /**
+     * Returns the signal strength currently distributed across this network.
+     *
+     * @return Power level (0-15)
+     */
+    public int getCachedInputSignal() {
+        return cachedInputSignal;
+    }
+
+    /**
+     * Creates the network for a part that was split off from this network.
+     * The new network starts with a copy of this network's state.
+     *
+     * @param id ID of the new network
+     * @return The new network
+     */
+    ChainNetwork splitOff(int id) {
+        ChainNetwork split = new ChainNetwork(id);
+        split.dirty = dirty;
+        split.cachedInputSignal = cachedInputSignal;
+        split.ticksWithoutInput = ticksWithoutInput;
+        // Input faces of the moved members are transferred by the ChainNetworkManager
+        return split;
+    }
+
+    /**
+     * Folds the state of a network that is being merged into this one.
+     *
+     * @param other The smaller network that no longer exists after the merge
+     */
+    void absorb(ChainNetwork other) {
+        dirty |= other.dirty;
+        // The other network's queue entry now resolves to this network
+        queued |= other.queued;
+        if (other.awake) {
+            // Keep exactly one schedule entry: ours if awake, otherwise the other one's
+            if (!awake) {
+                awake = true;
+                awakeAnchor = other.awakeAnchor;
+            }
+            quietValidations = 0;
+        }
+
+        // Merge the smaller face index into the larger one
+        if (other.inputFaces.size() > inputFaces.size()) {
+            Long2IntOpenHashMap swap = inputFaces;
+            inputFaces = other.inputFaces;
+            other.inputFaces = swap;
+        }
+        inputFaces.putAll(other.inputFaces);
+        for (int strength = 0; strength < strengthCounts.length; strength++) {
+            strengthCounts[strength] += other.strengthCounts[strength];
+        }
+        maxInput = Math.max(maxInput, other.maxInput);
+
+        // The absorbed members may still carry the other network's power
+        appliedSignal = -1;
+
+        if (other.cachedInputSignal > cachedInputSignal) {
+            cachedInputSignal = other.cachedInputSignal;
+            ticksWithoutInput = other.ticksWithoutInput;
+        }
+    }
+
+    // ===== Input Face Index =====
+
+    /**
+     * Returns the packed face values of a member.
+     *
+     * @param pos Packed member position
+     * @return Packed face values (0 if the member has no input faces)
+     */
+    int getInputFaces(long pos) {
+        return inputFaces.get(pos);
+    }
+
+    /**
+     * Replaces the packed face values of a member and updates the strength histogram.
+     * A value of 0 removes the member from the index.
+     *
+     * @param pos   Packed member position
+     * @param faces Packed face values, e.g. from scanInputFaces()
+     */
+    void setInputFaces(long pos, int faces) {
+        int old = faces == 0 ? inputFaces.remove(pos) : inputFaces.put(pos, faces);
+        if (old != faces) {
+            forEachInputStrength(old, this::uncountStrength);
+            forEachInputStrength(faces, this::countStrength);
+        }
+    }
+
+    /**
+     * Updates a single face of a member, e.g. after its neighbor changed.
+     *
+     * @param pos  Packed member position
+     * @param dir  The face that changed
+     * @param face New face value from scanFace()
+     */
+    void setInputFace(long pos, Direction dir, int face) {
+        int shift = dir.get3DDataValue() * FACE_BITS;
+        int faces = inputFaces.get(pos);
+        setInputFaces(pos, (faces & ~(FACE_MASK << shift)) | (face << shift));
+    }
+
+    /**
+     * Removes a member from the index, e.g. because it left the network.
+     *
+     * @param pos Packed member position
+     * @return The member's former packed face values (0 if none)
+     */
+    int removeInputFaces(long pos) {
+        int old = inputFaces.remove(pos);
+        forEachInputStrength(old, this::uncountStrength);
+        return old;
+    }
+
+    /**
+     * Returns the number of indexed input faces. Useful for debugging and tests.
+     */
+    public int getInputFaceCount() {
+        int count = 0;
+        for (int strength = 0; strength < strengthCounts.length; strength++) {
+            count += strengthCounts[strength];
+        }
+        return count;
+    }
+
+    /**
+     * Returns the strongest input currently provided by any indexed face.
+     * Kept incrementally by the strength histogram, so this is O(1).
+     *
+     * @return Power level (0-15)
+     */
+    public int getInputPower() {
+        return maxInput;
+    }
+
+    private void countStrength(int strength) {
+        strengthCounts[strength]++;
+        if (strength > maxInput) {
+            maxInput = strength;
+        }
+    }
+
+    private void uncountStrength(int strength) {
+        strengthCounts[strength]--;
+        // At most 15 steps down, independent of the network size
+        while (maxInput > 0 && strengthCounts[maxInput] == 0) {
+            maxInput--;
+        }
+    }
+
+    private static void forEachInputStrength(int faces, IntConsumer consumer) {
+        for (int d = 0; d < 6; d++) {
+            int face = (faces >>> (d * FACE_BITS)) & FACE_MASK;
+            if ((face & INPUT_FLAG) != 0) {
+                consumer.accept(face & STRENGTH_MASK);
+            }
+        }
+    }
+
+    /**
+     * Scans all 6 faces of a member and returns their packed face values.
+     *
+     * @param access Read access of the current pass
+     * @param pos    Member position
+     * @return Packed face values (0 if the member has no input faces)
+     */
+    static int scanInputFaces(ChainLevelAccess access, BlockPos pos) {
+        int faces = 0;
+        for (Direction dir : Direction.values()) {
+            faces |= scanFace(access, pos, dir) << (dir.get3DDataValue() * FACE_BITS);
+        }
+        return faces;
+    }
+
+    /**
+     * Classifies a face of a member and reads the strength it currently provides.
+     * <p>
+     * A face is input-capable if its neighbor:
+     * - Is not a chain block (internal connection) or vanilla redstone wire (prevents feedback loops)
+     * - Is a signal source (lever, torch, repeater, ...), or currently provides power
+     *   (e.g. a solid block powered by a repeater)
+     * <p>
+     * Whenever the classification or the strength changes, the neighbor (or the block
+     * powering it) updates its neighbors, so neighborChanged() keeps the index current.
+     *
+     * @param access Read access of the current pass
+     * @param pos    Member position
+     * @param dir    Face to check
+     * @return INPUT_FLAG | strength for input-capable faces, 0 otherwise
+     */
+    static int scanFace(ChainLevelAccess access, BlockPos pos, Direction dir) {
+        BlockPos neighborPos = pos.relative(dir);
+        BlockState neighborState = access.getBlockState(neighborPos);
+        Block block = neighborState.getBlock();
+        if (block instanceof RedstoneChainBlock || block instanceof RedStoneWireBlock) {
+            return 0;
+        }
+        // Note: dir.getOpposite() is used due to Minecraft's backwards direction API
+        int strength = access.getSignal(neighborPos, dir.getOpposite());
+        if (!neighborState.isSignalSource() && strength <= 0) {
+            return 0;
+        }
+        return INPUT_FLAG | Math.min(strength, STRENGTH_MASK);
+    }
+
+    /**
+     * Re-reads the strength of every indexed input face and corrects the histogram.
+     * <p>
+     * Input changes normally arrive through neighborChanged(). This is the periodic safety
+     * net for changes that did not cause a neighbor update (e.g. blocks edited by other mods
+     * without updates). Faces that are not indexed are not read.
+     * <p>
+     * Faces whose member or neighbor lies in an unloaded chunk keep their last-known value,
+     * so unloaded parts of a network keep contributing their input.
+     *
+     * @param access Read access of the current pass
+     * @return true if any face strength had changed
+     */
+    boolean resampleInputs(ChainLevelAccess access) {
+        LongArrayList changedPositions = new LongArrayList();
+        IntArrayList changedFaces = new IntArrayList();
+
+        for (Long2IntMap.Entry entry : inputFaces.long2IntEntrySet()) {
+            if (!access.isLoaded(entry.getLongKey())) continue;
+
+            BlockPos pos = BlockPos.of(entry.getLongKey());
+            int faces = entry.getIntValue();
+            int resampled = 0;
+            for (Direction dir : Direction.values()) {
+                int shift = dir.get3DDataValue() * FACE_BITS;
+                if ((faces & (INPUT_FLAG << shift)) == 0) continue;
+
+                if (access.isLoaded(BlockPos.offset(entry.getLongKey(), dir))) {
+                    resampled |= scanFace(access, pos, dir) << shift;
+                } else {
+                    resampled |= faces & (FACE_MASK << shift);
+                }
+            }
+            if (resampled != faces) {
+                changedPositions.add(entry.getLongKey());
+                changedFaces.add(resampled);
+            }
+        }
+
+        for (int i = 0; i < changedPositions.size(); i++) {
+            setInputFaces(changedPositions.getLong(i), changedFaces.getInt(i));
+        }
+
+        if (changedPositions.isEmpty()) {
+            return false;
+        }
+
+        // Also re-check the member states on the next evaluation
+        appliedSignal = -1;
+        return true;
+    }
+
+    // ===== Evaluation =====
+
+    /**
+     * Updates the redstone signal for the entire network.
+     * <p>
+     * This is the main coordination method that:
+     * 1. Prevents feedback loops using isUpdating flag
+     * 2. Reads the external power input (O(1), kept by the strength histogram)
+     * 3. Updates cached signal with delay to prevent flickering
+     * 4. Distributes signal to all blocks in network
+     * <p>
+     * Called by the ChainNetworkManager, which guarantees the network is built and
+     * evaluates each network at most once per tick.
+     *
+     * @param access   Read access of the current pass
+     * @param members  Snapshot of all network members
+     * @param deferred Receives the power of members in unloaded chunks
+     * @return Whether the persisted signal state (cached input or applied signal) changed,
+     * i.e. whether the manager has to be saved again
+     */
+    boolean evaluate(ChainLevelAccess access, List<BlockPos> members, PendingPowerWrites deferred) {
+        // Prevent infinite recursion (feedback loop protection)
+        if (isUpdating) {
+            return false;
+        }
+
+        int previousCached = cachedInputSignal;
+        int previousApplied = appliedSignal;
+        isUpdating = true;
+        try {
+            // Step 1: Read the external power input from the strength histogram
+            int currentInput = maxInput;
+
+            // Step 2: Update cached signal with delay (prevents flickering)
+            updateCachedSignal(currentInput);
+
+            // Step 3: Distribute the signal to all blocks (only if it changed)
+            if (cachedInputSignal != appliedSignal) {
+                applySignalToNetwork(access, members, cachedInputSignal, deferred);
+                appliedSignal = cachedInputSignal;
+            }
+
+        } finally {
+            // Always clear the updating flag, even if an exception occurs
+            isUpdating = false;
+        }
+        return cachedInputSignal != previousCached || appliedSignal != previousApplied;
+    }
+
+    /**
+     * Applies a redstone signal strength to all blocks in the network.
+     * <p>
+     * This method updates the POWER property of every RedstoneChainBlock in the network
+     * to the specified signal strength. Only blocks whose power actually differs are
+     * written, and only their non-chain neighbors are notified, once each (see ChainPowerWriter).
+     * Members in unloaded chunks are written when their chunk loads.
+     *
+     * @param signal The redstone signal strength (0-15) to apply to all network blocks
+     */
+    private void applySignalToNetwork(ChainLevelAccess access, List<BlockPos> members, int signal, PendingPowerWrites deferred) {
+        ChainPowerWriter.apply(access, members, signal, deferred);
+    }
+
+    /**
+     * Updates the cached signal based on current input.
+     * Implements a delay before clearing signal to prevent flickering.
+     *
+     * @param currentInput The current power level from external sources
+     */
+    private void updateCachedSignal(int currentInput) {
+        if (currentInput > 0) {
+            // Power detected - update cache immediately and reset delay counter
+            cachedInputSignal = currentInput;
+            ticksWithoutInput = 0;
+        } else {
+            // No power - increment delay counter
+            ticksWithoutInput++;
+
+            // Only clear signal after delay period has passed
+            if (ticksWithoutInput >= Config.SIGNAL_LOSS_DELAY_TICKS.getAsInt()) {
+                cachedInputSignal = 0;
+            }
+            // Otherwise keep the cached signal (prevents flickering)
+        }
+    }
+}
@@ -0,0 +1,1394 @@
+package at.osa.redstonewire;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ByteMap;
+import it.unimi.dsi.fastutil.longs.Long2ByteOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.core.SectionPos;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.saveddata.SavedData;
+import net.neoforged.neoforge.event.level.ChunkEvent;
+import net.neoforged.neoforge.event.tick.LevelTickEvent;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+/**
+ * Server-side, per-level owner of redstone chain network membership.
+ * <p>
+ * Instead of every RedstoneChainEntity keeping its own copy of the whole network,
+ * the manager stores membership once in a union-find ChainGraph and hands out network IDs.
+ * Entities only keep a handle (their position), which is resolved to a network through
+ * this manager.
+ * <p>
+ * The manager is attached to each ServerLevel as SavedData. Membership of loaded blocks is
+ * derived from the cable connections stored in the block entities. Members in unloaded chunks
+ * stay in the graph as virtual nodes (see VirtualNodeStore); their topology is persisted
+ * together with the ID counter.
+ */
+public class ChainNetworkManager extends SavedData {
+
+    /**
+     * Name of the data file inside the level's "data" folder.
+     */
+    private static final String DATA_NAME = RedstoneWire.MODID + "_networks";
+
+    /**
+     * Network ID returned for positions that are not part of any network yet.
+     */
+    public static final int NO_NETWORK = 0;
+
+    /**
+     * Connectivity of all known chain blocks in this level.
+     */
+    private final ChainGraph graph = new ChainGraph();
+
+    /**
+     * Graph members whose chunks are not loaded, with their last-known links and input faces.
+     */
+    private final VirtualNodeStore virtualNodes = new VirtualNodeStore();
+
+    /**
+     * Power levels waiting for the chunks of their members to load.
+     */
+    private final PendingPowerWrites pendingWrites = new PendingPowerWrites();
+
+    /**
+     * Cable changes of this tick that still have to be sent to clients.
+     */
+    private final ChainTopologySync topologySync = new ChainTopologySync();
+
+    /**
+     * Chunks marked for saving by cable edits during the current tick (ChunkPos keys),
+     * see countDirtiedChunk(). Cleared at the end of every tick.
+     */
+    private final LongOpenHashSet dirtiedChunks = new LongOpenHashSet();
+
+    /**
+     * Chunks that loaded with pending writes, as ChunkPos keys. Drained at the end of every level tick.
+     */
+    private final LongLinkedOpenHashSet loadedChunks = new LongLinkedOpenHashSet();
+
+    /**
+     * Former neighbors of removed blocks and ends of removed cables whose networks may have
+     * split. All checks of a tick (or of a batch, see beginBatch()) are resolved together.
+     */
+    private final LongLinkedOpenHashSet pendingSplitChecks = new LongLinkedOpenHashSet();
+
+    /**
+     * Networks with at most this many pending endpoints are checked pair by pair with the
+     * bidirectional search; larger groups (mass edits) get one connectivity pass instead.
+     */
+    private static final int PAIRWISE_SPLIT_LIMIT = 8;
+
+    private static final long[] NO_LINKS = new long[0];
+
+    /**
+     * Nesting depth of beginBatch() calls. Topology is not resolved while a batch is open.
+     */
+    private int batchDepth = 0;
+
+    /**
+     * Read access shared by the neighbor updates of a tick (see refreshInputFace()). Dropped at
+     * the end of every tick and whenever a chunk loads or unloads, so it never holds a stale
+     * chunk.
+     */
+    @Nullable
+    private ChainLevelAccess neighborAccess;
+
+    /**
+     * Chain blocks that were loaded or placed and still have to join a network.
+     * Drained at the end of every level tick.
+     */
+    private final LongLinkedOpenHashSet pendingJoins = new LongLinkedOpenHashSet();
+
+    /**
+     * Networks that need to be evaluated at the end of the current tick, each represented by
+     * one member position. A network is queued at most once (see ChainNetwork.isQueued()).
+     */
+    private final LongLinkedOpenHashSet updateQueue = new LongLinkedOpenHashSet();
+
+    /**
+     * Schedule of the awake networks, i.e. the ones that are still periodically validated.
+     * Each awake network has exactly one live entry (its anchor, see ChainNetwork.isAwakeAt()).
+     * Dormant networks have no entry and cost nothing until they are woken.
+     */
+    private final ValidationWheel validationWheel = new ValidationWheel();
+
+    /**
+     * Networks evaluated during the current tick, so no network is evaluated twice per tick.
+     */
+    private final Set<ChainNetwork> evaluatedThisTick = new ReferenceOpenHashSet<>();
+
+    /**
+     * Next free network ID. Persisted so IDs are not reused after a restart.
+     */
+    private int nextNetworkId = 1;
+
+    /**
+     * The level this manager belongs to. Needed to snapshot loaded members when saving.
+     */
+    @Nullable
+    private ServerLevel level;
+
+    private ChainNetworkManager() {
+    }
+
+    /**
+     * Returns the network manager of the given level, creating it on first access.
+     *
+     * @param level The server level
+     * @return The level's network manager
+     */
+    public static ChainNetworkManager get(ServerLevel level) {
+        ChainNetworkManager manager = level.getDataStorage().computeIfAbsent(
+                new SavedData.Factory<>(ChainNetworkManager::new, ChainNetworkManager::load, null),
+                DATA_NAME);
+        manager.level = level;
+        return manager;
+    }
+
+    private static ChainNetworkManager load(CompoundTag tag, HolderLookup.Provider registries) {
+        ChainNetworkManager manager = new ChainNetworkManager();
+        manager.nextNetworkId = Math.max(1, tag.getInt("NextNetworkId"));
+        manager.virtualNodes.load(tag.getCompound("VirtualNodes"));
+        manager.restoreVirtualNodes();
+        manager.restoreNetworkStates(tag.getCompound("Networks"));
+        manager.pendingWrites.load(tag.getCompound("PendingWrites"));
+        return manager;
+    }
+
+    /**
+     * Saves the ID counter and the topology of all members.
+     * <p>
+     * Loaded members are written as virtual nodes too: when the level is loaded again,
+     * every network is restored as a whole, even if only some of its chunks are loaded.
+     */
+    @Override
+    public CompoundTag save(CompoundTag tag, HolderLookup.Provider registries) {
+        tag.putInt("NextNetworkId", nextNetworkId);
+
+        VirtualNodeStore snapshot = new VirtualNodeStore();
+        virtualNodes.forEach(pos -> snapshot.add(pos, virtualNodes.getLinks(pos), virtualNodes.getInputFaces(pos)));
+        if (level != null) {
+            ChainLevelAccess access = new ChainLevelAccess(level);
+            graph.forEachNetwork((network, member) -> graph.forEachMember(graph.indexOf(member), pos -> {
+                if (!virtualNodes.contains(pos)) {
+                    snapshot.add(pos, cableLinksOf(access, pos), network.getInputFaces(pos));
+                }
+            }));
+        }
+        tag.put("VirtualNodes", snapshot.save());
+        tag.put("Networks", saveNetworkStates());
+        tag.put("PendingWrites", pendingWrites.save());
+        return tag;
+    }
+
+    /**
+     * Saves the signal state of every network, keyed by one of its members:
+     * - "Anchors": packed member positions
+     * - "States": cachedInputSignal, ticksWithoutInput and appliedSignal, 3 ints per anchor
+     */
+    private CompoundTag saveNetworkStates() {
+        LongArrayList anchors = new LongArrayList();
+        IntArrayList states = new IntArrayList();
+        graph.forEachNetwork((network, member) -> {
+            anchors.add(member);
+            states.add(network.getCachedInputSignal());
+            states.add(network.getTicksWithoutInput());
+            states.add(network.getAppliedSignal());
+        });
+
+        CompoundTag tag = new CompoundTag();
+        tag.putLongArray("Anchors", anchors.toLongArray());
+        tag.putIntArray("States", states.toIntArray());
+        return tag;
+    }
+
+    /**
+     * Warm-starts the restored networks with their saved signal state, so they continue where
+     * they stopped instead of computing 0 first. Networks that were still settling (e.g. a
+     * signal loss delay counting down) are scheduled for validation to finish it.
+     */
+    private void restoreNetworkStates(CompoundTag tag) {
+        long[] anchors = tag.getLongArray("Anchors");
+        int[] states = tag.getIntArray("States");
+        if (states.length != anchors.length * 3) return;
+
+        for (int i = 0; i < anchors.length; i++) {
+            ChainNetwork network = graph.networkOf(anchors[i]);
+            if (network == null) continue;
+
+            network.restoreSignalState(states[i * 3], states[i * 3 + 1], states[i * 3 + 2]);
+            if (!network.isSettled()) {
+                wake(network, anchors[i]);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the graph of the persisted virtual nodes after loading.
+     * The networks start with the last-known input faces of their members.
+     */
+    private void restoreVirtualNodes() {
+        virtualNodes.forEach(pos -> graph.add(pos, null));
+        virtualNodes.forEach(pos -> forEachVirtualLink(pos,
+                link -> graph.union(graph.indexOf(pos), graph.indexOf(link))));
+        virtualNodes.forEach(pos -> {
+            ChainNetwork network = graph.networkOf(pos);
+            if (network == null) {
+                network = new ChainNetwork(allocateNetworkId());
+                graph.setNetwork(graph.indexOf(pos), network);
+            }
+            network.setInputFaces(pos, virtualNodes.getInputFaces(pos));
+        });
+    }
+
+    // ===== Ticking =====
+
+    /**
+     * Level tick hook, registered on the NeoForge event bus.
+     * Runs the controller tick of every server level's network manager.
+     */
+    public static void onLevelTick(LevelTickEvent.Post event) {
+        if (event.getLevel() instanceof ServerLevel level) {
+            get(level).tick(level);
+        }
+    }
+
+    /**
+     * Chunk load hook, registered on the NeoForge event bus.
+     * Queues all chain blocks of the loaded chunk to join their networks, the virtual nodes
+     * of the chunk so they become regular members again (or leave the graph if the block is
+     * gone), and the power writes that waited for the chunk. All of it is handled together
+     * at the end of the tick.
+     */
+    public static void onChunkLoad(ChunkEvent.Load event) {
+        if (event.getLevel() instanceof ServerLevel level && event.getChunk() instanceof LevelChunk chunk) {
+            ChainNetworkManager manager = get(level);
+            manager.neighborAccess = null;
+            manager.pendingJoins.addAll(manager.virtualNodes.positionsIn(chunk.getPos()));
+            manager.queueChainBlocks(chunk);
+            if (manager.pendingWrites.hasWrites(chunk.getPos())) {
+                manager.loadedChunks.add(chunk.getPos().toLong());
+            }
+        }
+    }
+
+    /**
+     * Chunk unload hook, registered on the NeoForge event bus.
+     * <p>
+     * Most chain blocks have no block entity (only cabled ones do), so they are not covered
+     * by RedstoneChainEntity.onChunkUnloaded(). This turns every member of the chunk into a
+     * virtual node; cabled members take their links from their block entity.
+     */
+    public static void onChunkUnload(ChunkEvent.Unload event) {
+        if (event.getLevel() instanceof ServerLevel level && event.getChunk() instanceof LevelChunk chunk) {
+            ChainNetworkManager manager = get(level);
+            manager.neighborAccess = null;
+            manager.forEachChainBlock(chunk, pos -> manager.unloadMember(chunk, pos));
+        }
+    }
+
+    private void unloadMember(LevelChunk chunk, long pos) {
+        ChainNetwork network = graph.networkOf(pos);
+        if (network == null || virtualNodes.contains(pos)) return;
+
+        long[] links = NO_LINKS;
+        if (chunk.getBlockEntity(BlockPos.of(pos), LevelChunk.EntityCreationType.CHECK) instanceof RedstoneChainEntity chain) {
+            links = toLongs(chain.getConnections());
+        }
+        virtualNodes.add(pos, links, network.getInputFaces(pos));
+        setDirty();
+    }
+
+    /**
+     * Queues every chain block of a loaded chunk for joining.
+     */
+    private void queueChainBlocks(LevelChunk chunk) {
+        forEachChainBlock(chunk, pendingJoins::add);
+    }
+
+    /**
+     * Visits every chain block of a chunk.
+     * <p>
+     * Sections whose palette cannot contain a chain block are skipped without looking at
+     * their blocks, so chunks without chain blocks cost one palette check per section.
+     *
+     * @param chunk    The chunk
+     * @param consumer Receives the packed position of each chain block
+     */
+    private static void forEachChainBlock(LevelChunk chunk, LongConsumer consumer) {
+        LevelChunkSection[] sections = chunk.getSections();
+        for (int index = 0; index < sections.length; index++) {
+            LevelChunkSection section = sections[index];
+            if (section.hasOnlyAir() || !section.maybeHas(state -> state.getBlock() instanceof RedstoneChainBlock)) {
+                continue;
+            }
+
+            int minX = chunk.getPos().getMinBlockX();
+            int minY = SectionPos.sectionToBlockCoord(chunk.getSectionYFromSectionIndex(index));
+            int minZ = chunk.getPos().getMinBlockZ();
+            for (int y = 0; y < 16; y++) {
+                for (int z = 0; z < 16; z++) {
+                    for (int x = 0; x < 16; x++) {
+                        if (section.getBlockState(x, y, z).getBlock() instanceof RedstoneChainBlock) {
+                            consumer.accept(BlockPos.asLong(minX + x, minY + y, minZ + z));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Called once per level tick, after all blocks and block entities have ticked.
+     * <p>
+     * What happens every tick:
+     * 1. Cable changes of the tick are sent to clients, and cables of chunks that came into
+     *    range are streamed (see ChainTopologySync)
+     * 2. Networks that may have split are checked, and newly loaded or placed chain blocks
+     *    join their networks (skipped while a batch is open, see beginBatch())
+     * 3. Power that changed while a chunk was unloaded is written into the loaded chunk
+     * 4. All queued networks are evaluated, each at most once
+     * 5. The awake networks whose validation is due are validated, within the time budget
+     * <p>
+     * With no awake networks and nothing queued, a tick costs O(1) no matter how many
+     * chain blocks the level contains.
+     * <p>
+     * This replaces the per-entity ticker: previously every member ran the full network
+     * evaluation on its own, which made one interval cost O(N²) block reads per network.
+     *
+     * @param level The server level
+     */
+    private void tick(ServerLevel level) {
+        // Clients see cable changes right away, even while a batch defers the networks
+        topologySync.flush(level);
+        countDirtiedChunksOfTick();
+
+        evaluatedThisTick.clear();
+        // One accessor for all passes of this tick: they mostly read the same few chunks
+        ChainLevelAccess access = new ChainLevelAccess(level);
+        if (batchDepth == 0) {
+            resolveTopology(access);
+        }
+        applyPendingWrites(access);
+        drainUpdateQueue(access);
+        validateDueNetworks(access);
+        if (pendingWrites.consumeRecorded()) {
+            setDirty();
+        }
+        neighborAccess = null;
+    }
+
+    /**
+     * Resolves all buffered topology changes: split checks first, then pending joins.
+     */
+    private void resolveTopology(ChainLevelAccess access) {
+        resolveSplitChecks(access);
+        joinPendingBlocks(access);
+    }
+
+    // ===== Batches =====
+
+    /**
+     * Starts a bulk edit, e.g. a command that replaces many chain blocks at once.
+     * <p>
+     * Removals and placements are always buffered until the end of the tick. Within a batch
+     * their topology changes are buffered until the matching endBatch(), even across ticks.
+     * Networks keep being evaluated and validated in between; only networks that need a
+     * rebuild wait for the batch to end. Batches may be nested; only the outermost endBatch()
+     * resolves. Prefer runBatch(), which cannot leave a batch open.
+     */
+    public void beginBatch() {
+        batchDepth++;
+    }
+
+    /**
+     * Runs a bulk edit as one batch. The batch is ended even if the edit throws.
+     *
+     * @param edit The edit
+     */
+    public void runBatch(Runnable edit) {
+        beginBatch();
+        try {
+            edit.run();
+        } finally {
+            endBatch();
+        }
+    }
+
+    /**
+     * Ends a bulk edit started with beginBatch(). When the outermost batch ends, all buffered
+     * topology changes are resolved right away: one connectivity pass per affected network.
+     * The affected networks are evaluated at the end of the tick.
+     */
+    public void endBatch() {
+        if (batchDepth == 0) {
+            throw new IllegalStateException("endBatch() without beginBatch()");
+        }
+        batchDepth--;
+        if (batchDepth == 0 && level != null) {
+            resolveTopology(new ChainLevelAccess(level));
+        }
+    }
+
+    /**
+     * Records a cable change of a chain block, to be sent to clients at the end of the tick.
+     *
+     * @param pos    Position of the chain block
+     * @param target Position of the peer
+     * @param added  Whether the cable was added (true) or removed (false)
+     */
+    public void recordLinkChange(BlockPos pos, BlockPos target, boolean added) {
+        topologySync.record(pos, target, added);
+    }
+
+    ChainTopologySync getTopologySync() {
+        return topologySync;
+    }
+
+    // ===== Chunk save statistics =====
+
+    /**
+     * Records that a cable edit marked the chunk of a chain block for saving.
+     * <p>
+     * Only the entities whose connections changed mark their chunks (see
+     * RedstoneChainEntity.markConnectionsChanged()); network bookkeeping never does. Each
+     * chunk is counted once per tick, like the save it causes.
+     *
+     * @param pos Position of the chain block
+     */
+    public void countDirtiedChunk(BlockPos pos) {
+        dirtiedChunks.add(ChunkPos.asLong(pos));
+    }
+
+    /**
+     * Logs how many chunks the cable edits of this tick marked for saving. Breaking one cable
+     * should report at most 2 (the chunks of its ends).
+     */
+    private void countDirtiedChunksOfTick() {
+        if (dirtiedChunks.isEmpty()) return;
+
+        RedstoneWire.LOGGER.debug("Cable edits marked {} chunks for saving", dirtiedChunks.size());
+        dirtiedChunks.clear();
+    }
+
+    /**
+     * Queues a chain block to join its network at the end of the current tick.
+     *
+     * @param pos Position of the chain block
+     */
+    public void queueJoin(BlockPos pos) {
+        pendingJoins.add(pos.asLong());
+    }
+
+    /**
+     * Joins all pending chain blocks of this tick in one pass.
+     * <p>
+     * A chunk load queues all of its chain blocks at once. Instead of joining them one by one,
+     * the pass works in three steps:
+     * 1. Add every new block to the graph as a single-node set
+     * 2. Unite every new block with its links (new or existing members)
+     * 3. Give each resulting set without a network a new one and index the input faces
+     * <p>
+     * Loading a network of N blocks therefore costs O(N) link visits in total, no matter in
+     * which order its blocks and chunks arrive, and each network is queued for one evaluation.
+     * <p>
+     * Worlds saved before block entities were limited to cabled blocks still carry an empty
+     * entity on every chain block, and their cabled blocks lack the CABLED state. Empty entities
+     * are dropped here (see RedstoneChainBlock.detachEntity), and blocks whose entity has
+     * cables get the CABLED state (see RedstoneChainBlock.attachEntity), so the entity is
+     * recreated when the chunk loads again.
+     */
+    private void joinPendingBlocks(ChainLevelAccess access) {
+        if (pendingJoins.isEmpty()) return;
+
+        LongArrayList joined = new LongArrayList();
+        LongArrayList uncabled = new LongArrayList();
+        LongArrayList legacyCabled = new LongArrayList();
+        LongArrayList reloaded = new LongArrayList();
+        while (!pendingJoins.isEmpty()) {
+            BlockPos pos = BlockPos.of(pendingJoins.removeFirstLong());
+            if (virtualNodes.contains(pos.asLong())) {
+                reloaded.add(pos.asLong());
+                continue;
+            }
+            if (graph.contains(pos.asLong())) continue;
+            if (isChainBlock(access, pos)) {
+                graph.add(pos.asLong(), null);
+                joined.add(pos.asLong());
+                if (access.getBlockEntity(pos.asLong()) instanceof RedstoneChainEntity chain) {
+                    if (chain.getConnections().isEmpty()) {
+                        uncabled.add(pos.asLong());
+                    } else if (!access.getBlockState(pos).getValue(RedstoneChainBlock.CABLED)) {
+                        legacyCabled.add(pos.asLong());
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < joined.size(); i++) {
+            long key = joined.getLong(i);
+            forEachLink(access, key, link -> graph.union(graph.indexOf(key), graph.indexOf(link)));
+        }
+
+        for (int i = 0; i < joined.size(); i++) {
+            long key = joined.getLong(i);
+            ChainNetwork network = graph.networkOf(key);
+            if (network == null) {
+                network = new ChainNetwork(allocateNetworkId());
+                graph.setNetwork(graph.indexOf(key), network);
+            }
+            network.setInputFaces(key, ChainNetwork.scanInputFaces(access, BlockPos.of(key)));
+            // The new members may still carry an old power level
+            network.markMembersStale();
+            queueUpdate(BlockPos.of(key));
+        }
+
+        for (int i = 0; i < uncabled.size(); i++) {
+            RedstoneChainBlock.detachEntity(access.getLevel(), BlockPos.of(uncabled.getLong(i)));
+        }
+        for (int i = 0; i < legacyCabled.size(); i++) {
+            RedstoneChainBlock.attachEntity(access.getLevel(), BlockPos.of(legacyCabled.getLong(i)));
+        }
+
+        // Materializing may remove nodes (and compact the graph), so it runs only once every
+        // joined block has its network
+        for (int i = 0; i < reloaded.size(); i++) {
+            materialize(access, BlockPos.of(reloaded.getLong(i)));
+        }
+    }
+
+    /**
+     * Turns a virtual node whose chunk loaded again back into a regular member.
+     * <p>
+     * The node never left the graph, so the network needs no rebuild: only the input faces
+     * are scanned again. The network is only evaluated if the inputs or links differ from the
+     * stored snapshot. Power changes the block missed while unloaded are written by
+     * applyPendingWrites(), not by rewriting the whole network. Cable links that changed
+     * while the chunk was unloaded (e.g. by an external editor) are reconciled like regular
+     * link changes. Cables to peers that were removed meanwhile are dropped from the block
+     * entity: the peer could not remove them itself, since this chunk was not loaded.
+     *
+     * @param access Read access of the current pass
+     * @param pos    Position of the virtual node
+     */
+    private void materialize(ChainLevelAccess access, BlockPos pos) {
+        long key = pos.asLong();
+        // Not loaded yet after all - stay virtual until the chunk loads
+        if (!access.isLoaded(key)) return;
+
+        if (!isChainBlock(access, pos)) {
+            // Removed while unloaded
+            List<BlockPos> endpoints = new ArrayList<>();
+            forEachVirtualLink(key, link -> endpoints.add(BlockPos.of(link)));
+            virtualNodes.remove(key);
+            setDirty();
+            detach(key, endpoints);
+            return;
+        }
+
+        int previousFaces = virtualNodes.getInputFaces(key);
+        long[] previousLinks = virtualNodes.remove(key);
+        setDirty();
+
+        ChainNetwork network = graph.networkOf(key);
+        int faces = ChainNetwork.scanInputFaces(access, pos);
+        network.setInputFaces(key, faces);
+        boolean changed = faces != previousFaces;
+
+        long[] currentLinks = cableLinksOf(access, key);
+        List<BlockPos> staleLinks = new ArrayList<>();
+        for (long link : currentLinks) {
+            if (containsLink(previousLinks, link)) continue;
+            if (!linksBack(access, link, key)) {
+                // The peer was removed while this chunk was unloaded (see detach())
+                staleLinks.add(BlockPos.of(link));
+            } else if (graph.contains(link)) {
+                graph.union(graph.indexOf(key), graph.indexOf(link));
+                changed = true;
+            }
+        }
+        if (!staleLinks.isEmpty() && access.getBlockEntity(key) instanceof RedstoneChainEntity chain) {
+            for (BlockPos link : staleLinks) {
+                chain.removeConnection(link);
+            }
+        }
+        List<BlockPos> lostLinks = new ArrayList<>();
+        for (long link : previousLinks) {
+            if (graph.contains(link) && !containsLink(currentLinks, link)) {
+                lostLinks.add(BlockPos.of(link));
+            }
+        }
+        if (!lostLinks.isEmpty()) {
+            lostLinks.add(pos);
+            queueSplitCheck(lostLinks);
+            changed = true;
+        }
+
+        // Inputs and links as stored: the network's persisted state is still valid
+        if (changed) {
+            queueUpdate(pos);
+        }
+    }
+
+    /**
+     * Writes the power levels that members of freshly loaded chunks missed while unloaded.
+     * <p>
+     * All writes of a chunk are applied as one batch per power level, so every neighbor
+     * of the chunk's members is notified at most once per level.
+     */
+    private void applyPendingWrites(ChainLevelAccess access) {
+        while (!loadedChunks.isEmpty()) {
+            long chunkKey = loadedChunks.removeFirstLong();
+            if (!access.isChunkLoaded(chunkKey)) {
+                // Unloaded again before the end of the tick - keep the writes
+                continue;
+            }
+            Long2ByteOpenHashMap writes = pendingWrites.take(chunkKey);
+            if (writes == null) continue;
+            setDirty();
+
+            LongArrayList[] byPower = new LongArrayList[16];
+            for (Long2ByteMap.Entry write : writes.long2ByteEntrySet()) {
+                int power = write.getByteValue();
+                if (byPower[power] == null) byPower[power] = new LongArrayList();
+                byPower[power].add(write.getLongKey());
+            }
+            for (int power = 0; power < byPower.length; power++) {
+                if (byPower[power] != null) {
+                    ChainPowerWriter.apply(access, byPower[power], power, null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether a cable peer still has the cable back to a block. Peers in unloaded
+     * chunks that are not in the graph cannot be checked and count as linked.
+     *
+     * @param access Read access of the current pass
+     * @param peer   Packed position of the peer
+     * @param pos    Packed position of the block
+     */
+    private boolean linksBack(ChainLevelAccess access, long peer, long pos) {
+        if (virtualNodes.contains(peer)) {
+            return containsLink(virtualNodes.getLinks(peer), pos);
+        }
+        if (!access.isLoaded(peer)) {
+            return true;
+        }
+        return containsLink(cableLinksOf(access, peer), pos);
+    }
+
+    private static boolean containsLink(long[] links, long pos) {
+        for (long link : links) {
+            if (link == pos) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Requests an evaluation of the network of the given chain block at the end of this tick.
+     * <p>
+     * Any number of requests for the same network within one tick (a piston line or an
+     * observer clock next to the network) are coalesced into a single evaluation. The
+     * evaluation still happens in the same game tick as the trigger.
+     *
+     * @param pos Position of any member of the network
+     */
+    public void queueUpdate(BlockPos pos) {
+        ChainNetwork network = graph.networkOf(pos.asLong());
+        if (network != null) {
+            // Every external trigger wakes a dormant network
+            wake(network, pos.asLong());
+        }
+        enqueue(network, pos.asLong());
+    }
+
+    private void enqueue(@Nullable ChainNetwork network, long pos) {
+        if (network != null) {
+            if (network.isQueued()) return;
+            network.setQueued(true);
+        }
+        // Unbuilt blocks are queued by position; the drain builds their network first
+        updateQueue.add(pos);
+    }
+
+    private void wake(ChainNetwork network, long anchor) {
+        if (network.wake(anchor)) {
+            validationWheel.schedule(anchor);
+        }
+    }
+
+    /**
+     * Evaluates every queued network once.
+     * <p>
+     * Networks queued again while this drain runs (e.g. by feedback through a neighboring
+     * contraption) are evaluated in the next tick, so a feedback loop cannot stall the tick.
+     * Networks that need a rebuild wait while a batch is open (see beginBatch()).
+     */
+    private void drainUpdateQueue(ChainLevelAccess access) {
+        if (updateQueue.isEmpty()) return;
+
+        LongArrayList deferred = new LongArrayList();
+
+        while (!updateQueue.isEmpty()) {
+            BlockPos pos = BlockPos.of(updateQueue.removeFirstLong());
+            if (needsRebuild(pos)) {
+                if (batchDepth > 0) {
+                    // Rebuilds are topology changes too - keep the entry until the batch ends
+                    deferred.add(pos.asLong());
+                    continue;
+                }
+                ChainNetwork stale = graph.networkOf(pos.asLong());
+                if (stale != null) {
+                    // Members the rebuild does not reach must be able to queue their network again
+                    stale.setQueued(false);
+                }
+                if (!isChainBlock(access, pos)) continue;
+                rebuild(access, pos);
+                wake(graph.networkOf(pos.asLong()), pos.asLong());
+            }
+
+            ChainNetwork network = graph.networkOf(pos.asLong());
+            if (network == null) continue;
+            if (!evaluatedThisTick.add(network)) {
+                // Already evaluated this tick - keep the request for the next tick
+                if (network.isQueued()) deferred.add(pos.asLong());
+                continue;
+            }
+
+            network.setQueued(false);
+            evaluate(access, network, pos.asLong());
+        }
+
+        updateQueue.addAll(deferred);
+    }
+
+    /**
+     * Validates the awake networks that are due in this tick.
+     * <p>
+     * Periodic safety net: each network re-reads its indexed input faces, in case a change
+     * did not reach neighborChanged(), and is evaluated. Networks that stayed quiet for
+     * DORMANT_AFTER_VALIDATIONS validations go dormant and are not visited again until they
+     * are woken (see queueUpdate()).
+     * <p>
+     * Validations are spread over the update interval by the ValidationWheel, and this
+     * method stops as soon as VALIDATION_BUDGET_MICROS is used up. Networks that did not
+     * fit stay due and are validated first in the next tick. At least one network is
+     * validated per tick, so the backlog always makes progress.
+     */
+    private void validateDueNetworks(ChainLevelAccess access) {
+        validationWheel.advance(Config.UPDATE_INTERVAL_TICKS.getAsInt());
+        if (!validationWheel.hasBacklog()) return;
+
+        long budgetNanos = Config.VALIDATION_BUDGET_MICROS.getAsInt() * 1000L;
+        long start = System.nanoTime();
+        do {
+            validate(access, validationWheel.poll());
+        } while (validationWheel.hasBacklog() && System.nanoTime() - start < budgetNanos);
+    }
+
+    private void validate(ChainLevelAccess access, long anchor) {
+        ChainNetwork network = graph.networkOf(anchor);
+        // Entries of removed blocks, of dormant networks and of merged networks are stale
+        if (network == null || !network.isAwakeAt(anchor)) return;
+
+        if (network.isDirty()) {
+            // The drain rebuilds the network and wakes the rebuilt one
+            network.sleep();
+            enqueue(network, anchor);
+            return;
+        }
+
+        boolean inputsChanged = network.resampleInputs(access);
+        if (evaluatedThisTick.add(network)) {
+            evaluate(access, network, anchor);
+        }
+
+        if (!network.recordValidation(inputsChanged)) {
+            validationWheel.reschedule(anchor);
+        }
+    }
+
+    /**
+     * Evaluates a network and marks the manager for saving if its signal state changed.
+     * The saved state warm-starts the network after a restart (see restoreNetworkStates()),
+     * so it must never lag behind the POWER the members were saved with.
+     */
+    private void evaluate(ChainLevelAccess access, ChainNetwork network, long member) {
+        if (network.evaluate(access, graph.members(member), pendingWrites)) {
+            setDirty();
+        }
+    }
+
+    // ===== Queries =====
+
+    /**
+     * Returns the ID of the network the given chain block belongs to.
+     *
+     * @param pos Position of the chain block
+     * @return The network ID, or NO_NETWORK if the block has not been assigned yet
+     */
+    public int getNetworkId(BlockPos pos) {
+        ChainNetwork network = graph.networkOf(pos.asLong());
+        return network == null ? NO_NETWORK : network.getId();
+    }
+
+    /**
+     * Returns the members of the network the given chain block belongs to.
+     *
+     * @param pos Position of any member of the network
+     * @return Snapshot of the network members (empty if the block has no network)
+     */
+    public List<BlockPos> getMembers(BlockPos pos) {
+        return graph.members(pos.asLong());
+    }
+
+    /**
+     * Checks whether the network of the given block must be rebuilt before it can be used.
+     *
+     * @param pos Position of the chain block
+     * @return true if the block has no network or its network is marked dirty
+     */
+    public boolean needsRebuild(BlockPos pos) {
+        ChainNetwork network = graph.networkOf(pos.asLong());
+        return network == null || network.isDirty();
+    }
+
+    // ===== Mutations =====
+
+    /**
+     * Rebuilds the network containing the given block by walking its links
+     * (cable connections and face-adjacent chain blocks).
+     * <p>
+     * All reachable blocks are moved into a freshly numbered network. Blocks left behind
+     * in their previous network (because it split) keep that network marked dirty, and it is
+     * queued again, so they rebuild their own component in the same drain.
+     *
+     * @param access Read access of the current pass
+     * @param start  Position to start the search from
+     * @return The ID of the rebuilt network
+     */
+    private int rebuild(ChainLevelAccess access, BlockPos start) {
+        LongOpenHashSet visited = new LongOpenHashSet();
+        LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+        visited.add(start.asLong());
+        queue.enqueue(start.asLong());
+
+        while (!queue.isEmpty()) {
+            forEachLink(access, queue.dequeueLong(), neighbor -> {
+                if (visited.add(neighbor)) {
+                    queue.enqueue(neighbor);
+                }
+            });
+        }
+
+        // A member of the old network the search did not reach (it split off), if any
+        LongArrayList leftBehind = new LongArrayList(1);
+        int startIndex = graph.indexOf(start.asLong());
+        if (startIndex != ChainGraph.NONE) {
+            graph.forEachMember(startIndex, pos -> {
+                if (leftBehind.isEmpty() && !visited.contains(pos)) leftBehind.add(pos);
+            });
+        }
+
+        // Virtual members cannot be scanned - keep their last-known input faces
+        Long2IntOpenHashMap virtualFaces = new Long2IntOpenHashMap();
+        for (LongIterator it = visited.iterator(); it.hasNext(); ) {
+            long pos = it.nextLong();
+            if (virtualNodes.contains(pos)) {
+                virtualFaces.put(pos, virtualNodes.getInputFaces(pos));
+            }
+        }
+
+        for (LongIterator it = visited.iterator(); it.hasNext(); ) {
+            long pos = it.nextLong();
+            ChainNetwork previous = graph.remove(pos);
+            if (previous != null) {
+                previous.removeInputFaces(pos);
+                if (previous.isAwakeAt(pos)) {
+                    // Its schedule entry now belongs to the rebuilt network
+                    previous.sleep();
+                }
+            }
+        }
+
+        ChainNetwork network = new ChainNetwork(allocateNetworkId());
+        int first = graph.add(start.asLong(), network);
+        for (LongIterator it = visited.iterator(); it.hasNext(); ) {
+            long pos = it.nextLong();
+            first = graph.union(first, graph.add(pos, network));
+            int faces = virtualNodes.contains(pos)
+                    ? virtualFaces.get(pos)
+                    : ChainNetwork.scanInputFaces(access, BlockPos.of(pos));
+            network.setInputFaces(pos, faces);
+        }
+
+        if (!leftBehind.isEmpty()) {
+            // The members left behind rebuild their own network when this entry is drained
+            long pos = leftBehind.getLong(0);
+            enqueue(graph.networkOf(pos), pos);
+        }
+        return network.getId();
+    }
+
+    /**
+     * Merges the networks of two blocks that just got connected.
+     * <p>
+     * Uses union-by-size on the ChainGraph, so linking two networks costs near-constant
+     * time regardless of how large they are.
+     *
+     * @param a Position of the first block
+     * @param b Position of the second block
+     */
+    public void merge(BlockPos a, BlockPos b) {
+        int indexA = graph.indexOf(a.asLong());
+        int indexB = graph.indexOf(b.asLong());
+        if (indexA == ChainGraph.NONE || indexB == ChainGraph.NONE) {
+            // One side has not joined yet - it picks up the new cable when it joins
+            return;
+        }
+        graph.union(indexA, indexB);
+
+        // Power has to spread over the new connection
+        queueUpdate(a);
+    }
+
+    /**
+     * Queues a check whether networks fell apart after links were removed.
+     * <p>
+     * The check runs at the end of the tick (or at the end of the current batch), together
+     * with all other checks of that tick, see resolveSplitChecks().
+     *
+     * @param endpoints Blocks that were linked before, e.g. both ends of a removed cable,
+     *                  or the former neighbors and peers of a removed block
+     */
+    public void queueSplitCheck(List<BlockPos> endpoints) {
+        for (BlockPos endpoint : endpoints) {
+            pendingSplitChecks.add(endpoint.asLong());
+        }
+    }
+
+    /**
+     * Runs all queued split checks.
+     * <p>
+     * The endpoints are grouped by network. A network with a single endpoint cannot have
+     * split. A few endpoints (a cable or a block removed by a player) are checked pair by pair
+     * with the bidirectional search, which only visits the smaller side. Many endpoints (an
+     * explosion, /fill, a structure) are resolved with one connectivity pass over the network
+     * instead of one search per removed block.
+     */
+    private void resolveSplitChecks(ChainLevelAccess access) {
+        if (pendingSplitChecks.isEmpty()) return;
+
+        Reference2ObjectLinkedOpenHashMap<ChainNetwork, LongArrayList> byNetwork = new Reference2ObjectLinkedOpenHashMap<>();
+        LongIterator it = pendingSplitChecks.iterator();
+        while (it.hasNext()) {
+            long pos = it.nextLong();
+            ChainNetwork network = graph.networkOf(pos);
+            if (network != null) {
+                byNetwork.computeIfAbsent(network, n -> new LongArrayList()).add(pos);
+            }
+        }
+        pendingSplitChecks.clear();
+
+        for (Reference2ObjectMap.Entry<ChainNetwork, LongArrayList> entry : byNetwork.reference2ObjectEntrySet()) {
+            LongArrayList endpoints = entry.getValue();
+            if (endpoints.size() < 2) continue;
+
+            if (endpoints.size() <= PAIRWISE_SPLIT_LIMIT) {
+                List<BlockPos> positions = new ArrayList<>(endpoints.size());
+                for (int i = 0; i < endpoints.size(); i++) {
+                    positions.add(BlockPos.of(endpoints.getLong(i)));
+                }
+                splitIfDisconnected(access, positions);
+            } else {
+                splitComponents(access, entry.getKey(), endpoints);
+            }
+        }
+    }
+
+    /**
+     * Splits a network into its connected components in one pass.
+     * <p>
+     * Every surviving member is connected to at least one endpoint, so a search from each
+     * endpoint not reached yet finds all components. The first component keeps the network;
+     * every further component is moved into a new one. Cost is proportional to the network size.
+     *
+     * @param network   The network to check
+     * @param endpoints Its pending endpoints
+     */
+    private void splitComponents(ChainLevelAccess access, ChainNetwork network, LongArrayList endpoints) {
+        LongOpenHashSet visited = new LongOpenHashSet();
+        boolean first = true;
+        long kept = 0;
+
+        for (int i = 0; i < endpoints.size(); i++) {
+            long start = endpoints.getLong(i);
+            if (visited.contains(start)) continue;
+
+            LongOpenHashSet component = new LongOpenHashSet();
+            LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+            component.add(start);
+            queue.enqueue(start);
+            while (!queue.isEmpty()) {
+                forEachLink(access, queue.dequeueLong(), neighbor -> {
+                    if (component.add(neighbor)) {
+                        queue.enqueue(neighbor);
+                    }
+                });
+            }
+            visited.addAll(component);
+
+            if (first) {
+                first = false;
+                kept = start;
+            } else {
+                splitOff(network, component, kept);
+            }
+            // Every part may have lost its input - evaluate it at the end of the tick
+            queueUpdate(BlockPos.of(start));
+        }
+    }
+
+    /**
+     * Detects networks that fell apart after links were removed.
+     * <p>
+     * Each endpoint is checked against one representative of every component found so far
+     * with a bidirectional search (see ChainGraph.findDetachedSide). When an endpoint turned
+     * out to be disconnected, only the smaller side is moved into a new network - the rest of
+     * the network is untouched and nothing is rebuilt. Pairs already known to be connected
+     * through a representative are not searched again.
+     *
+     * @param access    Read access of the current pass
+     * @param endpoints Blocks that were linked before
+     */
+    private void splitIfDisconnected(ChainLevelAccess access, List<BlockPos> endpoints) {
+        ChainGraph.NeighborSource links = (pos, consumer) -> forEachLink(access, pos, consumer);
+        LongArrayList representatives = new LongArrayList();
+
+        for (BlockPos endpoint : endpoints) {
+            long a = endpoint.asLong();
+            if (!graph.contains(a) || representatives.contains(a)) continue;
+
+            boolean attached = false;
+            for (int r = 0; r < representatives.size() && !attached; r++) {
+                long b = representatives.getLong(r);
+                ChainNetwork network = graph.networkOf(a);
+                if (network != graph.networkOf(b)) continue;
+
+                LongSet detached = graph.findDetachedSide(a, b, links);
+                if (detached == null) {
+                    attached = true;
+                } else {
+                    splitOff(network, detached, detached.contains(a) ? b : a);
+
+                    // Both sides may have lost their input - evaluate them at the end of the tick
+                    queueUpdate(BlockPos.of(a));
+                    queueUpdate(BlockPos.of(b));
+                }
+            }
+
+            if (!attached) {
+                representatives.add(a);
+            }
+        }
+    }
+
+    /**
+     * Moves the detached members of a network into a new network.
+     *
+     * @param network  The network that fell apart
+     * @param detached Members that are no longer connected to the rest
+     * @param kept     Any member that stays in the network
+     */
+    private void splitOff(ChainNetwork network, LongSet detached, long kept) {
+        ChainNetwork split = network.splitOff(allocateNetworkId());
+        if (network.isAwake() && detached.contains(network.getAwakeAnchor())) {
+            // Its schedule entry now resolves to the split-off network
+            network.sleep();
+        }
+        LongIterator it = detached.iterator();
+        while (it.hasNext()) {
+            long pos = it.nextLong();
+            split.setInputFaces(pos, network.removeInputFaces(pos));
+        }
+        graph.split(detached, split);
+        if (network.isQueued()) {
+            // The queue entry may now resolve to the split-off part - queue the rest again
+            network.setQueued(false);
+            enqueue(network, kept);
+        }
+    }
+
+    /**
+     * Visits the links of a chain block: its cable peers and its face-adjacent chain blocks.
+     * <p>
+     * Both kinds of links are edges of the same graph. Only blocks that are part of the graph
+     * are reported. Cable peers of virtual nodes come from the VirtualNodeStore, so traversals
+     * walk through unloaded chunks without loading them.
+     *
+     * @param access   Read access of the current pass
+     * @param pos      Packed position of the chain block
+     * @param consumer Receives the packed position of every linked block
+     */
+    private void forEachLink(ChainLevelAccess access, long pos, LongConsumer consumer) {
+        if (virtualNodes.contains(pos)) {
+            forEachVirtualLink(pos, consumer);
+            return;
+        }
+        for (long link : cableLinksOf(access, pos)) {
+            if (graph.contains(link)) {
+                consumer.accept(link);
+            }
+        }
+        forEachAdjacentMember(pos, consumer);
+    }
+
+    private void forEachVirtualLink(long pos, LongConsumer consumer) {
+        for (long link : virtualNodes.getLinks(pos)) {
+            if (graph.contains(link)) {
+                consumer.accept(link);
+            }
+        }
+        forEachAdjacentMember(pos, consumer);
+    }
+
+    private void forEachAdjacentMember(long pos, LongConsumer consumer) {
+        for (Direction dir : Direction.values()) {
+            long neighbor = BlockPos.offset(pos, dir);
+            if (graph.contains(neighbor)) {
+                consumer.accept(neighbor);
+            }
+        }
+    }
+
+    /**
+     * Returns the cable peers stored in the block entity of a loaded chain block.
+     */
+    private static long[] cableLinksOf(ChainLevelAccess access, long pos) {
+        if (access.getBlockEntity(pos) instanceof RedstoneChainEntity chain) {
+            return toLongs(chain.getConnections());
+        }
+        return NO_LINKS;
+    }
+
+    private static long[] toLongs(List<BlockPos> positions) {
+        long[] packed = new long[positions.size()];
+        for (int i = 0; i < packed.length; i++) {
+            packed[i] = positions.get(i).asLong();
+        }
+        return packed;
+    }
+
+    /**
+     * Checks for a chain block. Blocks in unloaded chunks read as air and never match.
+     */
+    private static boolean isChainBlock(ChainLevelAccess access, BlockPos pos) {
+        return access.getBlockState(pos).getBlock() instanceof RedstoneChainBlock;
+    }
+
+    /**
+     * Removes a chain block that was broken, in O(degree).
+     * <p>
+     * The block's links are collected before it leaves the graph; afterwards only those
+     * former neighbors are checked for a split, at the end of the tick together with all
+     * other removals (see resolveSplitChecks). The remaining network is not rebuilt.
+     * <p>
+     * Must be called while the block's entity still holds its cable connections.
+     *
+     * @param level The level
+     * @param pos   Position of the broken chain block
+     */
+    public void removeBlock(Level level, BlockPos pos) {
+        long key = pos.asLong();
+        if (!graph.contains(key)) return;
+
+        ChainLevelAccess access = new ChainLevelAccess(level);
+        List<BlockPos> endpoints = new ArrayList<>();
+        forEachLink(access, key, link -> endpoints.add(BlockPos.of(link)));
+        detach(key, endpoints);
+    }
+
+    /**
+     * Takes a node out of the graph and queues a split check for its former links.
+     *
+     * @param key       Packed position of the node
+     * @param endpoints The node's linked members, collected before it leaves the graph
+     */
+    private void detach(long key, List<BlockPos> endpoints) {
+        ChainNetwork network = graph.remove(key);
+        if (network != null) {
+            network.removeInputFaces(key);
+            if (network.isAwakeAt(key)) {
+                network.sleep();
+            }
+        }
+
+        for (BlockPos endpoint : endpoints) {
+            // Unloaded peers cannot forget the cable themselves
+            virtualNodes.removeLink(endpoint.asLong(), key);
+        }
+
+        queueSplitCheck(endpoints);
+        // The removed block may have been the network's input
+        for (BlockPos endpoint : endpoints) {
+            queueUpdate(endpoint);
+        }
+    }
+
+    /**
+     * Turns a member into a virtual node because its chunk is unloading.
+     * <p>
+     * The node stays in the graph with its cable links and its last-known input faces,
+     * so the network keeps its topology and power and does not need a rebuild.
+     *
+     * @param pos        Position of the chain block
+     * @param cableLinks Its cable connections
+     */
+    public void unload(BlockPos pos, List<BlockPos> cableLinks) {
+        long key = pos.asLong();
+        ChainNetwork network = graph.networkOf(key);
+        if (network == null) return;
+
+        virtualNodes.add(key, toLongs(cableLinks), network.getInputFaces(key));
+        setDirty();
+    }
+
+    /**
+     * Forgets a chain block whose block entity was removed without the block leaving the
+     * network first. The network it belonged to is marked dirty since it may have split.
+     * Virtual nodes (see unload()) are kept, and so are chain blocks that only dropped their
+     * block entity (see RedstoneChainBlock.detachEntity) - they stay members by adjacency.
+     *
+     * @param level The level
+     * @param pos   Position of the chain block
+     */
+    public void remove(Level level, BlockPos pos) {
+        // Most calls are for blocks that already left the graph (see RedstoneChainBlock.onRemove);
+        // those skip the block state lookup
+        if (!graph.contains(pos.asLong()) || virtualNodes.contains(pos.asLong())) return;
+        if (level.getBlockState(pos).getBlock() instanceof RedstoneChainBlock) return;
+
+        ChainNetwork network = graph.remove(pos.asLong());
+        if (network != null) {
+            network.removeInputFaces(pos.asLong());
+            if (network.isAwakeAt(pos.asLong())) {
+                // The schedule entry is stale now; the next trigger schedules the network again
+                network.sleep();
+            }
+            network.markDirty();
+        }
+    }
+
+    /**
+     * Re-classifies the face of a chain block that points at a changed neighbor.
+     * <p>
+     * Keeps the network's input face index and strength histogram current, so evaluation
+     * can read the network input in O(1) instead of polling faces.
+     *
+     * @param level       The level
+     * @param pos         Position of the chain block
+     * @param neighborPos Position of the neighbor that changed
+     */
+    public void refreshInputFace(Level level, BlockPos pos, BlockPos neighborPos) {
+        ChainNetwork network = graph.networkOf(pos.asLong());
+        if (network == null) return;
+
+        long key = pos.asLong();
+        // Neighbor updates come in bursts around the same few blocks; share one accessor
+        if (neighborAccess == null) {
+            neighborAccess = new ChainLevelAccess(level);
+        }
+        ChainLevelAccess access = neighborAccess;
+        Direction dir = Direction.fromDelta(
+                neighborPos.getX() - pos.getX(),
+                neighborPos.getY() - pos.getY(),
+                neighborPos.getZ() - pos.getZ());
+        if (dir == null) {
+            // Not a direct neighbor (e.g. a self-update) - re-scan all faces
+            network.setInputFaces(key, ChainNetwork.scanInputFaces(access, pos));
+            return;
+        }
+
+        network.setInputFace(key, dir, ChainNetwork.scanFace(access, pos, dir));
+    }
+
+    // ===== Benchmarks =====
+
+    /**
+     * Durations of the passes over one network, see timePasses().
+     *
+     * @param members       Number of members the rebuild reached
+     * @param rebuildNanos  Rebuild: link walk and input face scan of every member
+     * @param validateNanos Validation: resample of every indexed input face
+     * @param applyNanos    Power write to every member and back
+     */
+    public record PassTimings(int members, long rebuildNanos, long validateNanos, long applyNanos) {
+    }
+
+    /**
+     * Runs the passes of a tick over the network of a block and times them, for
+     * ChainNetworkBenchmarks. With chunkCache == false every read looks its chunk up again,
+     * which is what the passes cost without ChainLevelAccess.
+     * <p>
+     * The network is rebuilt with a new ID and queued, so it is evaluated at the end of the
+     * tick as after any rebuild. Its members are left with the power they had.
+     *
+     * @param pos        Position of a member
+     * @param chunkCache Whether the passes share one ChainLevelAccess
+     * @return The timings, or null if the block has no network or is not loaded
+     */
+    @Nullable
+    public PassTimings timePasses(BlockPos pos, boolean chunkCache) {
+        if (level == null || graph.networkOf(pos.asLong()) == null) return null;
+        if (!(level.getBlockState(pos).getBlock() instanceof RedstoneChainBlock)) return null;
+
+        long start = System.nanoTime();
+        ChainLevelAccess access = chunkCache ? new ChainLevelAccess(level) : ChainLevelAccess.uncached(level);
+        rebuild(access, pos);
+        long rebuilt = System.nanoTime();
+
+        ChainNetwork network = graph.networkOf(pos.asLong());
+        network.resampleInputs(access);
+        long validated = System.nanoTime();
+
+        List<BlockPos> members = graph.members(pos.asLong());
+        int power = access.getBlockState(pos).getValue(RedstoneChainBlock.POWER);
+        ChainPowerWriter.apply(access, members, power == 0 ? 15 : 0, pendingWrites);
+        ChainPowerWriter.apply(access, members, power, pendingWrites);
+        long applied = System.nanoTime();
+
+        enqueue(network, pos.asLong());
+        return new PassTimings(members.size(), rebuilt - start, validated - rebuilt, applied - validated);
+    }
+
+    private int allocateNetworkId() {
+        int id = nextNetworkId++;
+        setDirty();
+        return id;
+    }
+}
@@ -0,0 +1,171 @@
+package at.osa.redstonewire;
+
+import it.unimi.dsi.fastutil.longs.Long2LongLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongCollection;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.world.level.Level;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+
+/**
+ * Writes a power level to a group of chain blocks and notifies their surroundings once.
+ * <p>
+ * Writing every member with setBlock(..., 3) makes each changed member update all 6 of its
+ * neighbors. In a cable or a row of touching chain blocks most of those neighbors are other
+ * chain blocks (which ignore updates from chain blocks anyway) or air. A network of a few
+ * thousand blocks feeding one lamp therefore caused tens of thousands of wasted updates.
+ * <p>
+ * This writer works in two stages instead:
+ * 1. Write the new POWER state of every changed member without neighbor updates
+ * 2. Notify each non-chain neighbor position that can consume power exactly once
+ * 3. Notify each comparator that reads the analog output of a changed member exactly once
+ * <p>
+ * All reads go through the pass's ChainLevelAccess; writes and notifications go through the level.
+ * Members in unloaded chunks are never loaded: their power is recorded in PendingPowerWrites
+ * and written when their chunk loads.
+ */
+final class ChainPowerWriter {
+
+    private ChainPowerWriter() {
+    }
+
+    /**
+     * Applies a power level to all given chain blocks.
+     *
+     * @param access   Read access of the current pass
+     * @param members  Positions of the chain blocks
+     * @param power    Power level (0-15) to apply
+     * @param deferred Receives the power of members in unloaded chunks
+     * @return true if at least one block changed
+     */
+    static boolean apply(ChainLevelAccess access, Collection<BlockPos> members, int power, PendingPowerWrites deferred) {
+        LongArrayList packed = new LongArrayList(members.size());
+        for (BlockPos pos : members) {
+            packed.add(pos.asLong());
+        }
+        return apply(access, packed, power, deferred);
+    }
+
+    /**
+     * Applies a power level to all given chain blocks.
+     *
+     * @param access   Read access of the current pass
+     * @param members  Packed positions (BlockPos.asLong()) of the chain blocks
+     * @param power    Power level (0-15) to apply
+     * @param deferred Receives the power of members in unloaded chunks, or null if all
+     *                 members are known to be loaded
+     * @return true if at least one block changed
+     */
+    static boolean apply(ChainLevelAccess access, LongCollection members, int power, @Nullable PendingPowerWrites deferred) {
+        Level level = access.getLevel();
+
+        // Stage 1: write states (flag 2 = send to clients, no neighbor updates)
+        LongArrayList changed = new LongArrayList();
+        LongIterator it = members.iterator();
+        while (it.hasNext()) {
+            long pos = it.nextLong();
+            BlockState state = access.getBlockState(pos);
+            if (state.getBlock() instanceof RedstoneChainBlock) {
+                if (state.getValue(RedstoneChainBlock.POWER) != power) {
+                    level.setBlock(BlockPos.of(pos), state.setValue(RedstoneChainBlock.POWER, power), Block.UPDATE_CLIENTS);
+                    changed.add(pos);
+                }
+            } else if (deferred != null && !access.isLoaded(pos)) {
+                deferred.record(pos, power);
+            }
+        }
+
+        if (changed.isEmpty()) {
+            return false;
+        }
+
+        // Stage 2: collect every consumer position once (consumer -> first changed member next to it)
+        Long2LongLinkedOpenHashMap consumers = new Long2LongLinkedOpenHashMap();
+        for (int i = 0; i < changed.size(); i++) {
+            long pos = changed.getLong(i);
+            for (Direction dir : Direction.values()) {
+                long neighbor = BlockPos.offset(pos, dir);
+                if (!consumers.containsKey(neighbor) && canConsumePower(access, neighbor)) {
+                    consumers.put(neighbor, pos);
+                }
+            }
+        }
+
+        Block chainBlock = access.getBlockState(changed.getLong(0)).getBlock();
+        for (Long2LongMap.Entry entry : consumers.long2LongEntrySet()) {
+            level.neighborChanged(BlockPos.of(entry.getLongKey()), chainBlock, BlockPos.of(entry.getLongValue()));
+        }
+
+        notifyAnalogReaders(access, changed, chainBlock);
+        return true;
+    }
+
+    /**
+     * Notifies comparators that read the analog output of the changed chain blocks (see
+     * hasAnalogOutputSignal), each position once.
+     * <p>
+     * Same targets as Level.updateNeighbourForOutputSignal() per member: the horizontal
+     * neighbors, and behind a solid horizontal neighbor the next block if it listens for
+     * weak changes. Calling that per member would notify a comparator next to a row of
+     * chain blocks once per member.
+     *
+     * @param access     Read access of the current pass
+     * @param changed    Packed positions of the changed chain blocks
+     * @param chainBlock The chain block, reported as the source of the change
+     */
+    private static void notifyAnalogReaders(ChainLevelAccess access, LongArrayList changed, Block chainBlock) {
+        Level level = access.getLevel();
+        // Reader position -> first changed member it reads through
+        Long2LongLinkedOpenHashMap direct = new Long2LongLinkedOpenHashMap();
+        Long2LongLinkedOpenHashMap behind = new Long2LongLinkedOpenHashMap();
+        for (int i = 0; i < changed.size(); i++) {
+            long pos = changed.getLong(i);
+            for (Direction dir : Direction.Plane.HORIZONTAL) {
+                long neighbor = BlockPos.offset(pos, dir);
+                // Unloaded positions read as air
+                if (direct.containsKey(neighbor) || !canConsumePower(access, neighbor)) continue;
+                direct.put(neighbor, pos);
+
+                BlockPos neighborPos = BlockPos.of(neighbor);
+                if (access.getBlockState(neighbor).isRedstoneConductor(level, neighborPos)) {
+                    long next = BlockPos.offset(neighbor, dir);
+                    if (!behind.containsKey(next) && access.getBlockState(next).getWeakChanges(level, BlockPos.of(next))) {
+                        behind.put(next, pos);
+                    }
+                }
+            }
+        }
+
+        for (Long2LongMap.Entry entry : direct.long2LongEntrySet()) {
+            BlockPos pos = BlockPos.of(entry.getLongKey());
+            access.getBlockState(entry.getLongKey()).onNeighborChange(level, pos, BlockPos.of(entry.getLongValue()));
+        }
+        for (Long2LongMap.Entry entry : behind.long2LongEntrySet()) {
+            BlockPos pos = BlockPos.of(entry.getLongKey());
+            level.neighborChanged(access.getBlockState(entry.getLongKey()), pos, chainBlock, BlockPos.of(entry.getLongValue()), false);
+        }
+    }
+
+    /**
+     * Checks whether a neighbor position needs to hear about a power change.
+     * <p>
+     * Skipped:
+     * - Other chain blocks (they ignore updates from chain blocks, see neighborChanged)
+     * - Air (nothing there can react to power)
+     *
+     * @param access Read access of the current pass
+     * @param pos    Packed neighbor position
+     * @return true if the neighbor should be notified
+     */
+    private static boolean canConsumePower(ChainLevelAccess access, long pos) {
+        BlockState state = access.getBlockState(pos);
+        return !state.isAir() && !(state.getBlock() instanceof RedstoneChainBlock);
+    }
+}
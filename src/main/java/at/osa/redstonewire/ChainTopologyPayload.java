@@ -0,0 +1,177 @@
+package at.osa.redstonewire;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.VarInt;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import net.neoforged.neoforge.network.event.RegisterPayloadHandlersEvent;
+import net.neoforged.neoforge.network.handling.IPayloadContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Server-to-client update of the cable connections of one chain block.
+ * <p>
+ * Clients receive the full connection lists once per chunk (see ChainChunkTopologyPayload).
+ * After that only the changes are sent: the links that were added and the links that were
+ * removed since the last update.
+ * <p>
+ * Wire format: the block position as a long, then both link lists. Each list is a VarInt
+ * count followed by one offset per link, relative to the block. Each offset component is a
+ * zigzag-encoded VarInt. Cables are at most MAX_CONNECTION_DISTANCE long, so a link usually
+ * takes 3 bytes instead of the 8 of a packed position (or the NBT compound of the old update
+ * packets).
+ *
+ * @param pos     Position of the chain block
+ * @param added   Positions of the peers that were connected
+ * @param removed Positions of the peers that were disconnected
+ */
+public record ChainTopologyPayload(BlockPos pos, List<BlockPos> added, List<BlockPos> removed)
+        implements CustomPacketPayload {
+
+    public static final Type<ChainTopologyPayload> TYPE =
+            new Type<>(ResourceLocation.fromNamespaceAndPath(RedstoneWire.MODID, "chain_topology"));
+
+    public static final StreamCodec<FriendlyByteBuf, ChainTopologyPayload> STREAM_CODEC =
+            StreamCodec.ofMember(ChainTopologyPayload::write, ChainTopologyPayload::read);
+
+    /**
+     * Version of the payload protocol. Clients with a different version cannot connect.
+     */
+    private static final String PROTOCOL_VERSION = "1";
+
+    /**
+     * Client side: updates for chain blocks whose block entity has not arrived yet, by packed
+     * position, in the order they were received. See handle().
+     */
+    private static final Long2ObjectOpenHashMap<List<ChainTopologyPayload>> PENDING = new Long2ObjectOpenHashMap<>();
+
+    /**
+     * Client side: the level the pending updates belong to.
+     */
+    private static Level pendingLevel;
+
+    @Override
+    public Type<ChainTopologyPayload> type() {
+        return TYPE;
+    }
+
+    // ===== Registration =====
+
+    /**
+     * Registers the payload. Listener on the mod event bus.
+     */
+    public static void register(RegisterPayloadHandlersEvent event) {
+        event.registrar(PROTOCOL_VERSION).playToClient(TYPE, STREAM_CODEC, ChainTopologyPayload::handle);
+    }
+
+    /**
+     * Applies an update on the client (handlers run on the main thread).
+     * <p>
+     * The first cable of a chain block creates its block entity (see
+     * RedstoneChainBlock.attachEntity). The block update that creates it on the client can
+     * arrive after this payload, so updates for chain blocks without a block entity are kept
+     * until it is loaded (see applyPending()). Updates for blocks that are no chain blocks
+     * (anymore) are dropped: the chunk snapshot the client receives for them later contains
+     * the full connection list.
+     */
+    private static void handle(ChainTopologyPayload payload, IPayloadContext context) {
+        Level level = context.player().level();
+        if (level.getBlockEntity(payload.pos()) instanceof RedstoneChainEntity chain) {
+            chain.applyTopologyChange(payload.added(), payload.removed());
+        } else if (level.getBlockState(payload.pos()).getBlock() instanceof RedstoneChainBlock) {
+            if (pendingLevel != level) {
+                PENDING.clear();
+                pendingLevel = level;
+            }
+            PENDING.computeIfAbsent(payload.pos().asLong(), k -> new ArrayList<>()).add(payload);
+        }
+    }
+
+    /**
+     * Applies the updates that arrived before a chain block's block entity. Client side,
+     * called when the block entity is loaded.
+     */
+    static void applyPending(RedstoneChainEntity chain) {
+        if (PENDING.isEmpty() || pendingLevel != chain.getLevel()) return;
+        List<ChainTopologyPayload> updates = PENDING.remove(chain.getBlockPos().asLong());
+        if (updates == null) return;
+        for (ChainTopologyPayload update : updates) {
+            chain.applyTopologyChange(update.added(), update.removed());
+        }
+    }
+
+    /**
+     * Drops the pending updates of a chunk. Client side, called when a chunk snapshot
+     * replaces all cables of the chunk (see ChainChunkTopologyPayload).
+     */
+    static void dropPending(Level level, ChunkPos chunkPos) {
+        if (PENDING.isEmpty() || pendingLevel != level) return;
+        PENDING.keySet().removeIf(pos -> ChunkPos.asLong(BlockPos.of(pos)) == chunkPos.toLong());
+    }
+
+    // ===== Encoding =====
+
+    private void write(FriendlyByteBuf buf) {
+        buf.writeLong(pos.asLong());
+        writeOffsets(buf, pos, added);
+        writeOffsets(buf, pos, removed);
+    }
+
+    private static ChainTopologyPayload read(FriendlyByteBuf buf) {
+        BlockPos pos = BlockPos.of(buf.readLong());
+        List<BlockPos> added = readOffsets(buf, pos);
+        List<BlockPos> removed = readOffsets(buf, pos);
+        return new ChainTopologyPayload(pos, added, removed);
+    }
+
+    /**
+     * Writes a VarInt count followed by one zigzag VarInt offset per link, relative to origin.
+     */
+    static void writeOffsets(FriendlyByteBuf buf, BlockPos origin, List<BlockPos> links) {
+        VarInt.write(buf, links.size());
+        for (BlockPos link : links) {
+            VarInt.write(buf, zigzag(link.getX() - origin.getX()));
+            VarInt.write(buf, zigzag(link.getY() - origin.getY()));
+            VarInt.write(buf, zigzag(link.getZ() - origin.getZ()));
+        }
+    }
+
+    /**
+     * Reads links written by writeOffsets().
+     */
+    static List<BlockPos> readOffsets(FriendlyByteBuf buf, BlockPos origin) {
+        int count = VarInt.read(buf);
+        // Every offset takes at least 3 bytes; reject counts the buffer cannot hold
+        if (count < 0 || count > buf.readableBytes() / 3) {
+            throw new IllegalArgumentException("Invalid link count in chain topology payload: " + count);
+        }
+
+        List<BlockPos> links = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int dx = unzigzag(VarInt.read(buf));
+            int dy = unzigzag(VarInt.read(buf));
+            int dz = unzigzag(VarInt.read(buf));
+            links.add(origin.offset(dx, dy, dz));
+        }
+        return links;
+    }
+
+    /**
+     * Maps signed values to unsigned ones (0, -1, 1, -2, ... to 0, 1, 2, 3, ...), so small
+     * negative offsets take one VarInt byte instead of five.
+     */
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,288 @@
+package at.osa.redstonewire;
+
+import it.unimi.dsi.fastutil.longs.Long2BooleanOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.neoforged.neoforge.event.level.ChunkWatchEvent;
+import net.neoforged.neoforge.network.PacketDistributor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Streams cable topology to the players of a level.
+ * <p>
+ * Players only receive the cables of chunks near them. A chunk that is sent to a player
+ * ("tracked") starts out withheld. Once it is within CABLE_STREAMING_RADIUS chunks of the
+ * player, its cables are sent as one ChainChunkTopologyPayload. Each player receives at most
+ * CABLE_STREAMING_BUDGET_BYTES of these per tick, nearest chunks first. When the player moves
+ * away again, the client is told to drop the cables of chunks that fell out of range (with a
+ * margin, so walking along the border does not resend them).
+ * <p>
+ * Cable changes are recorded per chain block when they happen (see
+ * RedstoneChainEntity.addConnection() / removeConnection()) and sent once at the end of the
+ * tick as ChainTopologyPayloads, only to players that hold the cables of the chunk. Other
+ * players get the change with the chunk snapshot later. Recording per position instead of in
+ * the block entity keeps the change even if the entity is dropped in the same tick (see
+ * RedstoneChainBlock.detachEntity), so the client still removes the cable. A link that is
+ * added and removed again in the same tick is not sent at all.
+ */
+final class ChainTopologySync {
+
+    /**
+     * Extra distance (in chunks) beyond the streaming radius before a chunk's cables are
+     * dropped from a client again.
+     */
+    private static final int RETRACT_MARGIN = 2;
+
+    /**
+     * Pending changes per chain block (packed position), in the order they were recorded.
+     */
+    private final Long2ObjectLinkedOpenHashMap<Change> pending = new Long2ObjectLinkedOpenHashMap<>();
+
+    /**
+     * Streaming state per player in this level.
+     */
+    private final Object2ObjectOpenHashMap<UUID, PlayerStream> streams = new Object2ObjectOpenHashMap<>();
+
+    // ===== Events =====
+
+    /**
+     * Chunk sent hook, registered on the NeoForge event bus.
+     * The cables of the chunk are withheld until the player is close enough (see stream()).
+     */
+    static void onChunkSent(ChunkWatchEvent.Sent event) {
+        ChainTopologySync sync = ChainNetworkManager.get(event.getLevel()).getTopologySync();
+        sync.streams.computeIfAbsent(event.getPlayer().getUUID(), k -> new PlayerStream()).watch(event.getPos().toLong());
+    }
+
+    /**
+     * Chunk unwatch hook, registered on the NeoForge event bus.
+     * The client dropped the chunk together with its block entities, so nothing is sent.
+     */
+    static void onChunkUnwatch(ChunkWatchEvent.UnWatch event) {
+        ChainTopologySync sync = ChainNetworkManager.get(event.getLevel()).getTopologySync();
+        PlayerStream stream = sync.streams.get(event.getPlayer().getUUID());
+        if (stream != null) {
+            stream.unwatch(event.getPos().toLong());
+        }
+    }
+
+    // ===== Cable changes =====
+
+    /**
+     * Records that a chain block gained or lost a cable.
+     *
+     * @param pos    Position of the chain block
+     * @param target Position of the peer
+     * @param added  Whether the cable was added (true) or removed (false)
+     */
+    void record(BlockPos pos, BlockPos target, boolean added) {
+        pending.computeIfAbsent(pos.asLong(), k -> new Change()).record(target.asLong(), added);
+    }
+
+    /**
+     * Sends the cable changes of this tick, then streams withheld chunks to players that
+     * came close enough to them. Called at the end of every level tick.
+     */
+    void flush(ServerLevel level) {
+        sendChanges(level);
+        stream(level);
+    }
+
+    private void sendChanges(ServerLevel level) {
+        if (pending.isEmpty()) return;
+
+        List<ServerPlayer> players = level.players();
+        for (Long2ObjectMap.Entry<Change> entry : pending.long2ObjectEntrySet()) {
+            Change change = entry.getValue();
+            if (change.isEmpty()) continue;
+
+            BlockPos pos = BlockPos.of(entry.getLongKey());
+            long chunk = ChunkPos.asLong(pos);
+            ChainTopologyPayload payload = null;
+            for (ServerPlayer player : players) {
+                PlayerStream stream = streams.get(player.getUUID());
+                if (stream == null || !stream.sent.containsKey(chunk)) continue;
+
+                if (payload == null) {
+                    payload = new ChainTopologyPayload(pos, toPositions(change.added), toPositions(change.removed));
+                }
+                PacketDistributor.sendToPlayer(player, payload);
+                if (!change.added.isEmpty()) {
+                    stream.sent.put(chunk, true);
+                }
+            }
+        }
+        pending.clear();
+    }
+
+    private static List<BlockPos> toPositions(LongLinkedOpenHashSet packed) {
+        List<BlockPos> positions = new ArrayList<>(packed.size());
+        packed.forEach(pos -> positions.add(BlockPos.of(pos)));
+        return positions;
+    }
+
+    // ===== Streaming =====
+
+    private void stream(ServerLevel level) {
+        if (streams.isEmpty()) return;
+
+        int radius = Config.getCableStreamingRadius();
+        int budget = Config.getCableStreamingBudgetBytes();
+        for (ServerPlayer player : level.players()) {
+            PlayerStream stream = streams.get(player.getUUID());
+            if (stream == null) continue;
+
+            ChunkPos center = player.chunkPosition();
+            if (center.toLong() != stream.center) {
+                stream.center = center.toLong();
+                retract(player, stream, center, radius + RETRACT_MARGIN);
+                stream.mayStream = true;
+            }
+            if (stream.mayStream) {
+                stream.mayStream = !send(level, player, stream, center, radius, budget);
+            }
+        }
+
+        // Players that left the level (logout, dimension change)
+        if (streams.size() > level.players().size()) {
+            streams.keySet().removeIf(uuid -> level.getPlayerByUUID(uuid) == null);
+        }
+    }
+
+    /**
+     * Sends the withheld chunks within the radius, nearest first, until the budget is spent.
+     * The first chunk is always sent, so a chunk larger than the budget still gets through.
+     *
+     * @return Whether all chunks within the radius were sent
+     */
+    private static boolean send(ServerLevel level, ServerPlayer player, PlayerStream stream,
+                                ChunkPos center, int radius, int budget) {
+        LongArrayList candidates = new LongArrayList();
+        for (LongIterator it = stream.withheld.iterator(); it.hasNext(); ) {
+            long chunk = it.nextLong();
+            if (distance(center, chunk) <= radius) {
+                candidates.add(chunk);
+            }
+        }
+        if (candidates.isEmpty()) return true;
+        candidates.sort((a, b) -> Integer.compare(distance(center, a), distance(center, b)));
+
+        int spent = 0;
+        for (int i = 0; i < candidates.size(); i++) {
+            if (spent >= budget) return false;
+
+            long key = candidates.getLong(i);
+            stream.withheld.remove(key);
+            // Unloaded chunks are unwatched right after; nothing to send
+            LevelChunk chunk = level.getChunkSource().getChunkNow(ChunkPos.getX(key), ChunkPos.getZ(key));
+            if (chunk == null) continue;
+
+            ChainChunkTopologyPayload payload = ChainChunkTopologyPayload.of(chunk);
+            stream.sent.put(key, payload != null);
+            if (payload != null) {
+                PacketDistributor.sendToPlayer(player, payload);
+                spent += payload.estimatedSize();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Withholds the chunks beyond a distance again. Clients that hold cables of such a chunk
+     * are told to drop them (an empty snapshot).
+     */
+    private static void retract(ServerPlayer player, PlayerStream stream, ChunkPos center, int distance) {
+        LongArrayList retracted = new LongArrayList();
+        for (LongIterator it = stream.sent.keySet().iterator(); it.hasNext(); ) {
+            long chunk = it.nextLong();
+            if (distance(center, chunk) > distance) {
+                retracted.add(chunk);
+            }
+        }
+
+        for (int i = 0; i < retracted.size(); i++) {
+            long chunk = retracted.getLong(i);
+            // The removed value tells whether the client holds cables of the chunk
+            if (stream.sent.remove(chunk)) {
+                PacketDistributor.sendToPlayer(player, ChainChunkTopologyPayload.empty(new ChunkPos(chunk)));
+            }
+            stream.withheld.add(chunk);
+        }
+    }
+
+    private static int distance(ChunkPos center, long chunk) {
+        return Math.max(Math.abs(ChunkPos.getX(chunk) - center.x), Math.abs(ChunkPos.getZ(chunk) - center.z));
+    }
+
+    /**
+     * Which tracked chunks a player holds the cables of.
+     */
+    private static final class PlayerStream {
+        /**
+         * Chunks whose cables were sent, mapped to whether the client holds any cables there.
+         */
+        private final Long2BooleanOpenHashMap sent = new Long2BooleanOpenHashMap();
+
+        /**
+         * Tracked chunks whose cables were not sent yet.
+         */
+        private final LongOpenHashSet withheld = new LongOpenHashSet();
+
+        /**
+         * Chunk (ChunkPos key) the player was in during the last pass.
+         */
+        private long center = Long.MIN_VALUE;
+
+        /**
+         * Whether withheld chunks may be within range, i.e. the last pass did not finish or
+         * chunks were added since.
+         */
+        private boolean mayStream = true;
+
+        void watch(long chunk) {
+            // A resent chunk comes without cables; it has to be streamed again
+            sent.remove(chunk);
+            withheld.add(chunk);
+            mayStream = true;
+        }
+
+        void unwatch(long chunk) {
+            sent.remove(chunk);
+            withheld.remove(chunk);
+        }
+    }
+
+    /**
+     * Net change of one chain block's links since the last flush.
+     */
+    private static final class Change {
+        private final LongLinkedOpenHashSet added = new LongLinkedOpenHashSet();
+        private final LongLinkedOpenHashSet removed = new LongLinkedOpenHashSet();
+
+        void record(long target, boolean add) {
+            if (add) {
+                // Re-adding a link removed earlier in the tick cancels out
+                if (!removed.remove(target)) added.add(target);
+            } else {
+                if (!added.remove(target)) removed.add(target);
+            }
+        }
+
+        boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty();
+        }
+    }
+}
@@ -48,6 +48,38 @@ public class Config {
         return Config.SIGNAL_LOSS_DELAY_TICKS.getAsInt();
     }
 
+    public static final ModConfigSpec.IntValue DORMANT_AFTER_VALIDATIONS = BUILDER
+            .comment("Number of periodic updates without any change after which a network goes dormant. Dormant networks cost nothing until a neighbor or the network itself changes.")
+            .defineInRange("dormantAfterValidations", 3, 1, Integer.MAX_VALUE);
+
+    public static int getDormantAfterValidations() {
+        return Config.DORMANT_AFTER_VALIDATIONS.getAsInt();
+    }
+
+    public static final ModConfigSpec.IntValue VALIDATION_BUDGET_MICROS = BUILDER
+            .comment("Maximum time (in microseconds) spent on periodic network updates per tick. Updates that do not fit are carried over to the next tick.")
+            .defineInRange("validationBudgetMicros", 500, 1, 1_000_000);
+
+    public static int getValidationBudgetMicros() {
+        return Config.VALIDATION_BUDGET_MICROS.getAsInt();
+    }
+
+    public static final ModConfigSpec.IntValue CABLE_STREAMING_RADIUS = BUILDER
+            .comment("Distance (in chunks) around a player within which cables are sent to the player. Cables of chunks further away are withheld until the player approaches.")
+            .defineInRange("cableStreamingRadius", 8, 1, 64);
+
+    public static int getCableStreamingRadius() {
+        return Config.CABLE_STREAMING_RADIUS.getAsInt();
+    }
+
+    public static final ModConfigSpec.IntValue CABLE_STREAMING_BUDGET_BYTES = BUILDER
+            .comment("Maximum amount of cable data (in bytes) sent to each player per tick when cables come into range. Chunks that do not fit are sent in later ticks, nearest first.")
+            .defineInRange("cableStreamingBudgetBytes", 16384, 256, 1_048_576);
+
+    public static int getCableStreamingBudgetBytes() {
+        return Config.CABLE_STREAMING_BUDGET_BYTES.getAsInt();
+    }
+
     static {
         BUILDER.pop();
     }
@@ -0,0 +1,111 @@
+package at.osa.redstonewire;
+
+import it.unimi.dsi.fastutil.bytes.ByteArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ByteMap;
+import it.unimi.dsi.fastutil.longs.Long2ByteOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.world.level.ChunkPos;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Power levels that could not be written because the member's chunk was not loaded.
+ * <p>
+ * Loading the chunk just to write a block state would stall the server thread, and skipping
+ * the member would leave it with a stale power level once the chunk loads. Instead the target
+ * power is recorded here per chunk (only the latest value per member is kept) and written in
+ * one batch when the chunk loads (see ChainNetworkManager.applyPendingWrites()).
+ * <p>
+ * Persisted by the ChainNetworkManager, so writes survive a restart.
+ */
+final class PendingPowerWrites {
+
+    /**
+     * Target power per member position, grouped by chunk (ChunkPos key).
+     */
+    private final Long2ObjectOpenHashMap<Long2ByteOpenHashMap> byChunk = new Long2ObjectOpenHashMap<>();
+
+    /**
+     * Whether writes were recorded since the last call to consumeRecorded().
+     */
+    private boolean recorded = false;
+
+    /**
+     * Records the power a member in an unloaded chunk has to take on, replacing an older value.
+     *
+     * @param pos   Packed member position
+     * @param power Power level (0-15)
+     */
+    void record(long pos, int power) {
+        byChunk.computeIfAbsent(chunkKey(pos), k -> new Long2ByteOpenHashMap()).put(pos, (byte) power);
+        recorded = true;
+    }
+
+    /**
+     * Returns whether writes were recorded since the last call, so the owner knows it has to be saved.
+     */
+    boolean consumeRecorded() {
+        boolean result = recorded;
+        recorded = false;
+        return result;
+    }
+
+    boolean hasWrites(ChunkPos chunkPos) {
+        return byChunk.containsKey(chunkPos.toLong());
+    }
+
+    /**
+     * Removes and returns all writes of a chunk.
+     *
+     * @param chunkKey ChunkPos key
+     * @return Target power per packed member position, or null if the chunk has no writes
+     */
+    @Nullable
+    Long2ByteOpenHashMap take(long chunkKey) {
+        return byChunk.remove(chunkKey);
+    }
+
+    private static long chunkKey(long pos) {
+        return ChunkPos.asLong(SectionPos.blockToSectionCoord(BlockPos.getX(pos)),
+                SectionPos.blockToSectionCoord(BlockPos.getZ(pos)));
+    }
+
+    // ===== Persistence =====
+
+    /**
+     * Writes all pending writes as flat arrays: "Positions" (packed member positions) and
+     * "Power" (one byte per position).
+     */
+    CompoundTag save() {
+        LongArrayList positions = new LongArrayList();
+        ByteArrayList powers = new ByteArrayList();
+        for (Long2ObjectMap.Entry<Long2ByteOpenHashMap> chunk : byChunk.long2ObjectEntrySet()) {
+            for (Long2ByteMap.Entry write : chunk.getValue().long2ByteEntrySet()) {
+                positions.add(write.getLongKey());
+                powers.add(write.getByteValue());
+            }
+        }
+
+        CompoundTag tag = new CompoundTag();
+        tag.putLongArray("Positions", positions.toLongArray());
+        tag.putByteArray("Power", powers.toByteArray());
+        return tag;
+    }
+
+    /**
+     * Reads writes saved by save(). Malformed data (mismatching array lengths) is ignored.
+     */
+    void load(CompoundTag tag) {
+        long[] positions = tag.getLongArray("Positions");
+        byte[] powers = tag.getByteArray("Power");
+        if (positions.length != powers.length) return;
+
+        for (int i = 0; i < positions.length; i++) {
+            record(positions[i], powers[i]);
+        }
+    }
+}
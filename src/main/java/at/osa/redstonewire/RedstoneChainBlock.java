@@ -9,11 +9,10 @@ import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.EntityBlock;
 import net.minecraft.world.level.block.entity.BlockEntity;
-import net.minecraft.world.level.block.entity.BlockEntityTicker;
-import net.minecraft.world.level.block.entity.BlockEntityType;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.block.state.StateDefinition;
 import net.minecraft.world.level.block.state.properties.BlockStateProperties;
+import net.minecraft.world.level.block.state.properties.BooleanProperty;
 import net.minecraft.world.level.block.state.properties.IntegerProperty;
 import net.minecraft.world.phys.shapes.CollisionContext;
 import net.minecraft.world.phys.shapes.Shapes;
@@ -21,10 +20,6 @@ import net.minecraft.world.phys.shapes.VoxelShape;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.Queue;
-import java.util.Set;
 
 /**
  * A redstone chain block that can transmit redstone signals.
@@ -34,6 +29,10 @@ import java.util.Set;
  * Supports two types of connections:
  * 1. Traditional adjacent connections (touching blocks)
  * 2. Long-range cable connections via RedstoneChainEntity (up to 24 blocks)
+ * Both are links of the same network, maintained by the level's ChainNetworkManager.
+ * <p>
+ * Only blocks with at least one cable have a block entity (CABLED state). Blocks that just
+ * touch other chain blocks are plain block states; the network tracks them by position.
  * <p>
  * Power transmission:
  * - POWER property stores signal strength (0-15, like vanilla redstone)
@@ -49,6 +48,12 @@ public class RedstoneChainBlock extends Block implements EntityBlock {
      */
     public static final IntegerProperty POWER = BlockStateProperties.POWER;
 
+    /**
+     * Block state property telling whether the block has cable connections, and therefore
+     * a RedstoneChainEntity to store them. Adjacency-only blocks have no block entity.
+     */
+    public static final BooleanProperty CABLED = BooleanProperty.create("cabled");
+
     /**
      * Visual and collision shape of the block.
      * A full block (16x16x16 pixels) - standard Minecraft block dimensions.
@@ -65,21 +70,22 @@ public class RedstoneChainBlock extends Block implements EntityBlock {
      */
     public RedstoneChainBlock(Properties properties) {
         super(properties);
-        this.registerDefaultState(this.stateDefinition.any().setValue(POWER, 0));
+        this.registerDefaultState(this.stateDefinition.any().setValue(POWER, 0).setValue(CABLED, false));
     }
 
     /**
      * Defines which properties this block's state can have.
      * <p>
      * In Minecraft, blocks can have various "states" (like whether a door is open or closed).
-     * This method tells Minecraft that our RedstoneChainBlock has one state property: POWER.
+     * This method tells Minecraft that our RedstoneChainBlock has two state properties:
      * POWER ranges from 0-15, just like regular redstone wire.
+     * CABLED tells whether the block has cable connections (and thus a block entity).
      *
      * @param builder The builder object used to register state properties
      */
     @Override
     protected void createBlockStateDefinition(StateDefinition.Builder<Block, BlockState> builder) {
-        builder.add(POWER);
+        builder.add(POWER, CABLED);
     }
 
     /**
@@ -129,10 +135,10 @@ public class RedstoneChainBlock extends Block implements EntityBlock {
      * If something asks for signal from the NORTH, this method receives Direction.SOUTH.
      * This is because Minecraft asks "what signal is coming FROM that direction?" not "TO that direction".
      * <p>
-     * This method does the following:
-     * 1. First, it checks if this block has a RedstoneChainEntity (block entity)
-     * 2. If it does, it returns the signal stored in the entity (which manages wire connections)
-     * 3. If not, it falls back to returning the POWER value from the block state
+     * The signal is the POWER value of the block state. The network's controller writes the
+     * network power into the state of every member (see ChainPowerWriter), so the state is
+     * always the member's current signal and no block entity or network lookup is needed.
+     * Vanilla wire and comparators call this many times per tick, so it stays a plain state read.
      * <p>
      * The indirect signal (this method) can power things through solid blocks, like how redstone
      * on top of a block can power a piston below it.
@@ -145,11 +151,6 @@ public class RedstoneChainBlock extends Block implements EntityBlock {
      */
     @Override
     public int getSignal(BlockState state, BlockGetter level, BlockPos pos, Direction direction) {
-        // Check if we have a block entity with wire connections
-        BlockEntity be = level.getBlockEntity(pos);
-        if (be instanceof RedstoneChainEntity chain) {
-            return chain.getSignal();
-        }
         return state.getValue(POWER);
     }
 
@@ -194,13 +195,11 @@ public class RedstoneChainBlock extends Block implements EntityBlock {
      * should only run on the server, not the client
      * 2. We check if the neighbor that changed is NOT another RedstoneChainBlock - this prevents
      * feedback loops where chain blocks keep updating each other endlessly
-     * 3. We try to get the BlockEntity for this position
-     * 4. If we have a RedstoneChainEntity (meaning this block has wire connections):
-     * - We call updateSignalInNetwork() which will recalculate power across all connected wires
-     * 5. If we don't have a BlockEntity (traditional adjacent-only connections):
-     * - We schedule a tick (delayed update) to recalculate power in 1 game tick
+     * 3. We update the network's input face index for the face that points at the neighbor
+     * 4. We queue the network of this block (touching and wire-connected chain blocks alike)
+     * - The ChainNetworkManager evaluates it once at the end of the tick
      * <p>
-     * The delayed tick prevents performance issues when many blocks change at once.
+     * The end-of-tick queue prevents performance issues when many blocks change at once.
      *
      * @param state         The current state of this block
      * @param level         The world/level the block is in
@@ -211,16 +210,11 @@ public class RedstoneChainBlock extends Block implements EntityBlock {
      */
     @Override
     public void neighborChanged(BlockState state, Level level, BlockPos pos, Block neighborBlock, BlockPos neighborPos, boolean movedByPiston) {
-        if (!level.isClientSide && !(neighborBlock instanceof RedstoneChainBlock)) {
-
-            BlockEntity be = level.getBlockEntity(pos);
-            if (be instanceof RedstoneChainEntity chain) {
-                // Use the network update for wire-connected blocks
-                chain.updateSignalInNetwork();
-            } else {
-                // Fallback to traditional adjacent block behavior
-                level.scheduleTick(pos, this, 1);
-            }
+        if (level instanceof ServerLevel serverLevel && !(neighborBlock instanceof RedstoneChainBlock)) {
+            ChainNetworkManager manager = ChainNetworkManager.get(serverLevel);
+            // Keep the input face index current, then update the network
+            manager.refreshInputFace(level, pos, neighborPos);
+            manager.queueUpdate(pos);
         }
     }
 
@@ -234,11 +228,11 @@ public class RedstoneChainBlock extends Block implements EntityBlock {
      * 1. Check if we're on the server (!level.isClientSide) - only do logic server-side
      * 2. Check if the new state is actually different from the old state (!state.is(oldState.getBlock()))
      * - This prevents unnecessary updates when a block replaces itself (like during updates)
-     * 3. If both conditions are true, schedule a tick in 1 game tick
-     * - This delayed update gives the block time to initialize properly
-     * - Then it will check for redstone power from neighbors and update accordingly
+     * 3. If both conditions are true, queue the block to join its network at the end of the tick
+     * - It is linked to its touching and wire-connected chain blocks in O(degree)
+     * - Then its network is evaluated, so it picks up power from its neighbors
      * <p>
-     * The delayed tick ensures that when you place a chain block next to powered redstone,
+     * This ensures that when you place a chain block next to powered redstone,
      * it will properly detect and adopt that power level after placement.
      *
      * @param state         The new state of this block
@@ -249,34 +243,22 @@ public class RedstoneChainBlock extends Block implements EntityBlock {
      */
     @Override
     public void onPlace(BlockState state, Level level, BlockPos pos, BlockState oldState, boolean movedByPiston) {
-        if (!level.isClientSide && !state.is(oldState.getBlock())) {
-            level.scheduleTick(pos, this, 1);
+        if (level instanceof ServerLevel serverLevel && !state.is(oldState.getBlock())) {
+            // Join the touching and wire-connected chain blocks at the end of the tick
+            ChainNetworkManager.get(serverLevel).queueJoin(pos);
         }
     }
 
     /**
      * Called when this block's scheduled tick executes.
      * <p>
-     * This method is triggered when a scheduled tick (from neighborChanged or onPlace) fires.
-     * It handles updating the redstone power for blocks using traditional adjacent connections
-     * (not wire connections).
+     * Touching and wire-connected chain blocks are part of the same network in the
+     * ChainNetworkManager, which is updated incrementally when blocks are placed or broken.
+     * There is no separate flood fill for touching blocks anymore, so this only queues the
+     * network for evaluation at the end of the tick.
      * <p>
-     * What happens inside:
-     * 1. First check if this block has a RedstoneChainEntity
-     * - If it does, return immediately - the entity handles its own network updates
-     * 2. For traditional adjacent connections:
-     * a. Call findNetwork() to discover all connected RedstoneChainBlocks
-     * - This uses a breadth-first search to find all touching chain blocks
-     * b. Call findPower() to determine the maximum power from any neighbor
-     * - Checks all neighbors of every block in the network
-     * - Returns the highest power level found (0-15)
-     * c. Update all blocks in the network to have the same power level
-     * - This ensures connected chain blocks share the same power
-     * d. If any block changed, notify all neighbors
-     * - This propagates the signal to adjacent redstone components
-     * <p>
-     * This creates behavior similar to vanilla redstone wire, where connected
-     * blocks form a network that shares the same power level.
+     * Chain blocks no longer schedule ticks themselves; this handles ticks that were
+     * scheduled before and saved with the world.
      *
      * @param state  The current state of this block
      * @param level  The server level (world)
@@ -285,119 +267,7 @@ public class RedstoneChainBlock extends Block implements EntityBlock {
      */
     @Override
     public void tick(BlockState state, ServerLevel level, BlockPos pos, RandomSource random) {
-        // Check if we have a block entity - if so, let it handle updates
-        BlockEntity be = level.getBlockEntity(pos);
-        if (be instanceof RedstoneChainEntity) {
-            return; // Let the entity handle network updates
-        }
-
-        // Traditional adjacent block network
-        Set<BlockPos> network = findNetwork(level, pos);
-        int power = findPower(level, network);
-
-        boolean changed = false;
-        for (BlockPos p : network) {
-            BlockState s = level.getBlockState(p);
-            if (s.getValue(POWER) != power) {
-                level.setBlock(p, s.setValue(POWER, power), 2);
-                changed = true;
-            }
-        }
-
-        if (changed) {
-            for (BlockPos p : network) {
-                level.updateNeighborsAt(p, this);
-            }
-        }
-    }
-
-    /**
-     * Finds all RedstoneChainBlocks connected to the starting position via adjacent blocks.
-     * <p>
-     * This method implements a breadth-first search (BFS) algorithm to discover all chain blocks
-     * that are touching each other (sharing a face). This is used for traditional adjacent
-     * connections, not wire connections.
-     * <p>
-     * How the BFS algorithm works:
-     * 1. Create an empty Set to track found blocks (prevents duplicates)
-     * 2. Create a Queue with the starting position
-     * 3. While there are positions to check:
-     *    a. Take a position from the queue
-     *    b. Skip if we've already processed it
-     *    c. Skip if it's not a RedstoneChainBlock
-     *    d. Add it to our network set
-     *    e. Check all 6 adjacent positions (up, down, north, south, east, west)
-     *    f. Add those positions to the queue for checking
-     * 4. Return the set of all connected chain blocks
-     * <p>
-     * This creates networks of touching chain blocks that will all share the same power level.
-     *
-     * @param level The world/level to search in
-     * @param start The starting position to search from
-     * @return A Set of all BlockPos that are part of this connected network
-     */
-    private Set<BlockPos> findNetwork(Level level, BlockPos start) {
-        Set<BlockPos> network = new HashSet<>();  // Visited blocks
-        Queue<BlockPos> queue = new LinkedList<>(); // Blocks to check
-        queue.add(start);
-
-        while (!queue.isEmpty()) {
-            BlockPos current = queue.poll();
-
-            // Skip if already visited
-            if (network.contains(current)) continue;
-
-            // Skip if not a chain block
-            if (!(level.getBlockState(current).getBlock() instanceof RedstoneChainBlock)) continue;
-
-            // Add to network
-            network.add(current);
-
-            // Add all neighbors to queue
-            for (Direction dir : Direction.values()) {
-                queue.add(current.relative(dir));
-            }
-        }
-        return network;
-    }
-
-    /**
-     * Finds the maximum redstone power from any block adjacent to this network.
-     * <p>
-     * This method checks all neighbors of every block in the network to find the strongest
-     * redstone signal being input into the network. This is how the chain blocks "receive"
-     * power from external sources like redstone torches, repeaters, or powered blocks.
-     * <p>
-     * How it works:
-     * 1. Start with max power of 0
-     * 2. For each block in our network:
-     * a. Check all 6 directions (up, down, north, south, east, west)
-     * b. Get the neighbor position in that direction
-     * c. Skip if the neighbor is also part of our network (we only want external power)
-     * d. Ask that neighbor block how much signal it's providing
-     * - level.getSignal() returns the redstone power (0-15) from that block
-     * - We pass d.getOpposite() because Minecraft's redstone API is backwards
-     * e. Keep track of the maximum power found
-     * f. If we find power of 15 (maximum), return early - no need to keep searching
-     * 3. Return the maximum power level found
-     * <p>
-     * This ensures the network adopts the strongest signal from any connected power source.
-     *
-     * @param level   The world/level to check in
-     * @param network The set of positions that make up this redstone network
-     * @return The maximum power level (0-15) from any external neighbor
-     */
-    private int findPower(Level level, Set<BlockPos> network) {
-        int max = 0;
-        for (BlockPos p : network) {
-            for (Direction d : Direction.values()) {
-                BlockPos neighbor = p.relative(d);
-                if (network.contains(neighbor)) continue;
-                max = Math.max(max, level.getSignal(neighbor, d.getOpposite()));
-                if (max >= 15) return 15;
-            }
-        }
-        return max;
+        ChainNetworkManager.get(level).queueUpdate(pos);
     }
 
     // ===== EntityBlock implementation =====
@@ -414,47 +284,64 @@ public class RedstoneChainBlock extends Block implements EntityBlock {
      * - Track the current power level
      * - Handle network updates across connected wires
      * <p>
-     * This method is called whenever a RedstoneChainBlock is placed in the world.
+     * Only CABLED states get a block entity. Chain blocks that just touch other chain blocks
+     * take part in their network through the ChainNetworkManager alone, so tens of thousands
+     * of them do not fill the level's block entity list. The entity is attached with the
+     * first cable (attachEntity) and dropped with the last one (detachEntity).
      *
      * @param pos   The position where the block entity should be created
      * @param state The state of the block
-     * @return A new RedstoneChainEntity instance, or null if creation fails
+     * @return A new RedstoneChainEntity instance, or null for blocks without cables
      */
     @Nullable
     @Override
     public BlockEntity newBlockEntity(BlockPos pos, BlockState state) {
-        return new RedstoneChainEntity(pos, state);
+        return state.getValue(CABLED) ? new RedstoneChainEntity(pos, state) : null;
     }
 
     /**
-     * Provides a "ticker" that runs logic every game tick for the BlockEntity.
-     * <p>
-     * In Minecraft, a "tick" happens 20 times per second (every 0.05 seconds). Some BlockEntities
-     * need to do something every tick - like furnaces checking if they should keep smelting,
-     * or hoppers checking for items to transfer.
-     * <p>
-     * This method tells Minecraft what code to run each tick for our RedstoneChainEntity.
-     * <p>
-     * What happens inside:
-     * 1. Check if the BlockEntityType matches our REDSTONE_CHAIN_ENTITY type
-     * - This ensures we're only ticking the right kind of entity
-     * 2. If it matches, return a reference to RedstoneChainEntity::tick
-     * - This is a method reference that points to the tick() method in RedstoneChainEntity
-     * - That method will be called every game tick (20 times per second)
-     * 3. If it doesn't match, return null (no ticker needed)
-     * <p>
-     * For our redstone chain, the ticker is used to periodically update the network and
-     * synchronize power levels across connected blocks.
+     * Returns the block entity of a chain block, attaching one if the block has none yet.
+     * Called before the first cable is connected.
      *
-     * @param level The world/level the block is in
-     * @param state The current state of the block
-     * @param type  The type of block entity
-     * @return A ticker function, or null if no ticking is needed
+     * @param level The level
+     * @param pos   Position of the chain block
+     * @return The block entity, or null if there is no chain block at the position
      */
     @Nullable
-    @Override
-    public <T extends BlockEntity> BlockEntityTicker<T> getTicker(Level level, BlockState state, BlockEntityType<T> type) {
-        return type == RedstoneWire.REDSTONE_CHAIN_ENTITY.get() ? RedstoneChainEntity::tick : null;
+    public static RedstoneChainEntity attachEntity(Level level, BlockPos pos) {
+        BlockState state = level.getBlockState(pos);
+        if (!(state.getBlock() instanceof RedstoneChainBlock)) return null;
+
+        if (!state.getValue(CABLED)) {
+            // Same block, so neither the network nor the neighbors need to hear about it
+            level.setBlock(pos, state.setValue(CABLED, true), Block.UPDATE_CLIENTS);
+        }
+        return level.getBlockEntity(pos) instanceof RedstoneChainEntity chain ? chain : null;
+    }
+
+    /**
+     * Drops the block entity of a chain block that lost its last cable.
+     * Does nothing if the position no longer holds a chain block (e.g. it is being broken).
+     *
+     * @param level The level
+     * @param pos   Position of the chain block
+     */
+    public static void detachEntity(Level level, BlockPos pos) {
+        BlockState state = level.getBlockState(pos);
+        if (!(state.getBlock() instanceof RedstoneChainBlock)) return;
+
+        if (state.getValue(CABLED)) {
+            level.setBlock(pos, state.setValue(CABLED, false), Block.UPDATE_CLIENTS);
+        }
+        // Changing the state of the same block keeps its entity - remove it explicitly
+        level.removeBlockEntity(pos);
+    }
+
+    /**
+     * Returns the number of cable connections of a chain block (0 for blocks without entity).
+     */
+    public static int getConnectionCount(Level level, BlockPos pos) {
+        return level.getBlockEntity(pos) instanceof RedstoneChainEntity chain ? chain.getConnections().size() : 0;
     }
 
     /**
@@ -468,12 +355,14 @@ public class RedstoneChainBlock extends Block implements EntityBlock {
      * 1. First check if the block is actually being replaced with a different block type
      * (!state.is(newState.getBlock())) - we only clean up if it's truly being removed,
      * not just changing state (like power level)
-     * 2. Get the BlockEntity at this position
-     * 3. If it's a RedstoneChainEntity (has wire connections):
+     * 2. Remove this block from its network (ChainNetworkManager.removeBlock) - only the
+     * former neighbors are checked for a split, the rest of the network stays untouched
+     * 3. If there is a RedstoneChainEntity (has wire connections):
      * a. Loop through all blocks this one is connected to
      * b. For each connected block, get its BlockEntity
      * c. If that entity is also a RedstoneChainEntity, tell it to remove its connection
-     * back to us - this prevents "dangling" connections pointing to a deleted block
+     * back to us - this prevents "dangling" connections pointing to a deleted block.
+     * Peers in unloaded chunks are skipped instead of loading their chunk
      * d. Clear all connections from this entity
      * 4. Call the parent class's onRemove to handle standard cleanup
      * <p>
@@ -489,10 +378,17 @@ public class RedstoneChainBlock extends Block implements EntityBlock {
     @Override
     public void onRemove(BlockState state, Level level, BlockPos pos, BlockState newState, boolean movedByPiston) {
         if (!state.is(newState.getBlock())) {
+            // Leave the network first, while the cable connections are still known
+            if (level instanceof ServerLevel serverLevel) {
+                ChainNetworkManager.get(serverLevel).removeBlock(level, pos);
+            }
+
             BlockEntity be = level.getBlockEntity(pos);
             if (be instanceof RedstoneChainEntity chain) {
                 // Remove connections from other chains that point to this one
                 for (BlockPos otherPos : new ArrayList<>(chain.getConnections())) {
+                    // Never load a chunk for this; unloaded peers are handled by the network manager
+                    if (!level.isLoaded(otherPos)) continue;
                     BlockEntity otherBe = level.getBlockEntity(otherPos);
                     if (otherBe instanceof RedstoneChainEntity otherChain) {
                         otherChain.removeConnection(pos);
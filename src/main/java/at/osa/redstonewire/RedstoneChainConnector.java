@@ -13,7 +13,6 @@ import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.TooltipFlag;
 import net.minecraft.world.item.context.UseOnContext;
 import net.minecraft.world.level.Level;
-import net.minecraft.world.level.block.entity.BlockEntity;
 
 import java.util.List;
 
@@ -61,12 +60,11 @@ public class RedstoneChainConnector extends Item {
 
         Level level = context.getLevel();
         BlockPos clickedPos = context.getClickedPos();
-        BlockEntity be = level.getBlockEntity(clickedPos);
-        if (!(be instanceof RedstoneChainEntity chain)) return InteractionResult.PASS;
+        if (!(level.getBlockState(clickedPos).getBlock() instanceof RedstoneChainBlock)) return InteractionResult.PASS;
 
         // Handle cable connections
         ItemStack stack = context.getItemInHand();
-        return handleClick(level, player, clickedPos, chain, stack);
+        return handleClick(level, player, clickedPos, RedstoneChainBlock.getConnectionCount(level, clickedPos), stack);
     }
 
     /**
@@ -78,15 +76,15 @@ public class RedstoneChainConnector extends Item {
      */
     private InteractionResult handleClick
     (Level level, Player player, BlockPos clickedPos,
-                                               RedstoneChainEntity chain, ItemStack stack) {
+                                               int connectionCount, ItemStack stack) {
         // Get saved position data from item (if any)
         CompoundTag savedData = stack.getOrDefault(RedstoneWire.LINK_DATA, new CompoundTag());
 
         // Check if this is the second click (completing a connection)
         if (hasSavedPosition(savedData)) {
-            return handleSecondClick(level, player, clickedPos, chain, stack, savedData);
+            return handleSecondClick(level, player, clickedPos, connectionCount, stack, savedData);
         } else {
-            return handleFirstClick(level, player, clickedPos, chain, stack);
+            return handleFirstClick(level, player, clickedPos, connectionCount, stack);
         }
     }
 
@@ -101,9 +99,9 @@ public class RedstoneChainConnector extends Item {
      * Handles the first click: saves the block position to the item.
      */
     private InteractionResult handleFirstClick(Level level, Player player, BlockPos clickedPos,
-                                               RedstoneChainEntity chain, ItemStack stack) {
+                                               int connectionCount, ItemStack stack) {
         // Check if chain already has max connections
-        if (chain.getConnections().size() >= Config.getMaxConnectionsPerChain()) {
+        if (connectionCount >= Config.getMaxConnectionsPerChain()) {
             showMaxConnectionsError(level, player);
             return InteractionResult.FAIL;
         }
@@ -121,7 +119,7 @@ public class RedstoneChainConnector extends Item {
      * Handles the second click: creates connection between saved position and clicked position.
      */
     private InteractionResult handleSecondClick(Level level, Player player, BlockPos clickedPos,
-                                                RedstoneChainEntity chain, ItemStack stack,
+                                                int connectionCount, ItemStack stack,
                                                 CompoundTag savedData) {
         // Read saved position
         BlockPos startPos = readPositionFromTag(savedData);
@@ -130,14 +128,14 @@ public class RedstoneChainConnector extends Item {
         clearSavedPosition(stack);
 
         // Validate connection
-        ConnectionValidation validation = validateConnection(level, player, startPos, clickedPos, chain);
+        ConnectionValidation validation = validateConnection(level, player, startPos, clickedPos, connectionCount);
         if (!validation.isValid()) {
             return InteractionResult.FAIL;
         }
 
         // Create the connection (server-side only)
         if (!level.isClientSide) {
-            createBidirectionalConnection(level, player, startPos, clickedPos, chain, stack);
+            createBidirectionalConnection(level, player, startPos, clickedPos, stack);
         }
 
         return InteractionResult.SUCCESS;
@@ -177,7 +175,7 @@ public class RedstoneChainConnector extends Item {
      */
     private ConnectionValidation validateConnection(Level level, Player player,
                                                     BlockPos startPos, BlockPos clickedPos,
-                                                    RedstoneChainEntity targetChain) {
+                                                    int targetConnectionCount) {
         // Can't connect to self
         if (startPos.equals(clickedPos)) {
             return ConnectionValidation.invalid();
@@ -195,7 +193,7 @@ public class RedstoneChainConnector extends Item {
         }
 
         // Check if target has max connections
-        if (targetChain.getConnections().size() >= Config.getMaxConnectionsPerChain()) {
+        if (targetConnectionCount >= Config.getMaxConnectionsPerChain()) {
             showMaxConnectionsError(level, player);
             return ConnectionValidation.invalid();
         }
@@ -203,26 +201,56 @@ public class RedstoneChainConnector extends Item {
         return ConnectionValidation.valid(distanceSq);
     }
 
+    /**
+     * Drops the block entity of a chain block that was attached for a cable that was not created.
+     */
+    private void detachIfUncabled(Level level, BlockPos pos) {
+        if (RedstoneChainBlock.getConnectionCount(level, pos) == 0) {
+            RedstoneChainBlock.detachEntity(level, pos);
+        }
+    }
+
     /**
      * Creates bidirectional cable connection between two chain blocks.
+     * Chain blocks without cables have no block entity yet; it is attached here.
      */
     private void createBidirectionalConnection(Level level, Player player,
                                                BlockPos startPos, BlockPos endPos,
-                                               RedstoneChainEntity endChain, ItemStack stack) {
-        // Get the starting chain's block entity
-        BlockEntity startBe = level.getBlockEntity(startPos);
-        if (!(startBe instanceof RedstoneChainEntity startChain)) {
+                                               ItemStack stack) {
+        // The starting block may have been removed or gained cables since the first click.
+        // Check before attaching, so a rejected cable leaves no entity behind.
+        if (!(level.getBlockState(startPos).getBlock() instanceof RedstoneChainBlock)) {
+            return;
+        }
+        if (level.getBlockEntity(startPos) instanceof RedstoneChainEntity existing
+                && existing.getConnections().contains(endPos)) {
+            return;
+        }
+        if (RedstoneChainBlock.getConnectionCount(level, startPos) >= Config.getMaxConnectionsPerChain()) {
+            showMaxConnectionsError(level, player);
             return;
         }
 
-        // Create connections in both directions
-        startChain.addConnection(endPos);
-        startChain.setChanged();
-        level.sendBlockUpdated(startPos, startChain.getBlockState(), startChain.getBlockState(), 3);
+        RedstoneChainEntity startChain = RedstoneChainBlock.attachEntity(level, startPos);
+        RedstoneChainEntity endChain = RedstoneChainBlock.attachEntity(level, endPos);
+        if (startChain == null || endChain == null) {
+            detachIfUncabled(level, startPos);
+            detachIfUncabled(level, endPos);
+            return;
+        }
 
+        // Create connections in both directions (each end saves itself and sends the new cable)
+        startChain.addConnection(endPos);
         endChain.addConnection(startPos);
-        endChain.setChanged();
-        level.sendBlockUpdated(endPos, endChain.getBlockState(), endChain.getBlockState(), 3);
+        if (!startChain.getConnections().contains(endPos) || !endChain.getConnections().contains(startPos)) {
+            // One end rejected the cable - drop the other half too (removing the last cable
+            // also drops the entity)
+            startChain.removeConnection(endPos);
+            endChain.removeConnection(startPos);
+            detachIfUncabled(level, startPos);
+            detachIfUncabled(level, endPos);
+            return;
+        }
 
         // Show success message
         double distance = Math.sqrt(startPos.distSqr(endPos));
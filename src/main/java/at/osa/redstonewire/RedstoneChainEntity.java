@@ -1,15 +1,12 @@
 package at.osa.redstonewire;
 
 import net.minecraft.core.BlockPos;
-import net.minecraft.core.Direction;
 import net.minecraft.core.HolderLookup;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.ListTag;
 import net.minecraft.nbt.Tag;
 import net.minecraft.network.protocol.game.ClientboundBlockEntityDataPacket;
-import net.minecraft.world.level.Level;
-import net.minecraft.world.level.block.Block;
-import net.minecraft.world.level.block.RedStoneWireBlock;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.block.state.BlockState;
 
@@ -20,8 +17,8 @@ import java.util.*;
  * <p>
  * This entity handles:
  * - Storing connections to other chain blocks (up to 3 connections per block)
- * - Managing a network of connected chain blocks
- * - Calculating and distributing redstone power across the network
+ * - Joining a network of connected chain blocks (membership is owned by ChainNetworkManager)
+ * - Triggering network updates (power is computed once per network by ChainNetwork)
  * - Syncing data between server and client for rendering
  * <p>
  * Unlike traditional adjacent-only connections, this entity allows chain blocks to connect
@@ -36,44 +33,20 @@ public class RedstoneChainEntity extends BlockEntity {
      */
     private final List<BlockPos> connections = new ArrayList<>();
 
-    // ===== Network Management =====
-    /**
-     * Cached set of all blocks in this network (includes this block and all transitively connected blocks).
-     * Rebuilt when networkDirty is true.
-     */
-    private final Set<BlockPos> network = new HashSet<>();
-
-    /**
-     * Flag indicating the network cache is stale and needs rebuilding.
-     * Set to true when connections change or network structure is invalidated.
-     */
-    private boolean networkDirty = true;
-
     /**
-     * Counts ticks since the last periodic update.
-     * Reset to 0 when UPDATE_INTERVAL is reached.
+     * NBT key of the packed connections (one BlockPos.asLong() per link).
      */
-    private int ticksSinceLastUpdate = 0;
+    private static final String LINKS_TAG = "Links";
 
-    // ===== Feedback Loop Protection =====
     /**
-     * Prevents recursive update calls that could cause infinite loops.
-     * Set to true during updateSignalInNetwork(), cleared in finally block.
+     * NBT key of the legacy connections list (one CompoundTag with x, y, z per link).
+     * Only read, for block entities saved before links were packed.
      */
-    private boolean isUpdating = false;
+    private static final String LEGACY_CONNECTIONS_TAG = "Connections";
 
-    // ===== Signal Management =====
-    /**
-     * Number of ticks that have passed with no external power input.
-     * Used to delay signal loss and prevent flickering.
-     */
-    private int ticksWithoutInput = 0;
-
-    /**
-     * The last known input signal strength from external sources.
-     * Cached to maintain signal briefly after input is lost.
-     */
-    private int cachedInputSignal = 0;
+    // ===== Network Management =====
+    // Network membership is stored once per network in the level's ChainNetworkManager.
+    // This entity's position is its handle into that structure.
 
     /**
      * Constructor for the RedstoneChainEntity.
@@ -135,8 +108,7 @@ public class RedstoneChainEntity extends BlockEntity {
      * - Rejects if target is too far away
      * <p>
      * After adding connection:
-     * - Marks network as dirty (needs rebuild)
-     * - Saves to disk and syncs to client
+     * - Saves to disk and sends the new link to clients
      * - Merges networks if target is part of another network
      *
      * @param target Position of the chain block to connect to
@@ -161,8 +133,7 @@ public class RedstoneChainEntity extends BlockEntity {
         connections.add(target);
 
         // Update state
-        markNetworkDirty();
-        saveAndSync();
+        saveAndSync(target, true);
 
         // Merge networks if target is part of another network
         mergeNetworkWithTarget(target);
@@ -258,26 +229,52 @@ public class RedstoneChainEntity extends BlockEntity {
         return worldPosition.distSqr(target) > maxDistSqr;
     }
 
-    private void markNetworkDirty() {
-        networkDirty = true;
+    private void saveAndSync(BlockPos target, boolean added) {
+        markConnectionsChanged();       // Marks for saving to disk
+        syncToClient(target, added);    // Sends the change to clients for rendering
     }
 
-    private void saveAndSync() {
-        setChanged();      // Marks for saving to disk
-        syncToClient();    // Sends update to client for rendering
+    /**
+     * Marks this block entity's chunk for saving because the connections (the only data this
+     * entity saves) changed.
+     * <p>
+     * This is the only place this entity dirties its chunk. Network state (membership, power,
+     * dirty flags) lives in the ChainNetworkManager and is saved with it, so a topology edit
+     * only dirties the chunks of the entities whose connections actually changed. The manager
+     * counts those chunks (see ChainNetworkManager.countDirtiedChunk()).
+     */
+    private void markConnectionsChanged() {
+        setChanged();
+        ChainNetworkManager manager = getNetworkManager();
+        if (manager != null) {
+            manager.countDirtiedChunk(worldPosition);
+        }
     }
 
     private void mergeNetworkWithTarget(BlockPos target) {
-        if (level == null) {
+        ChainNetworkManager manager = getNetworkManager();
+        if (manager == null) {
             return;
         }
 
         BlockEntity be = level.getBlockEntity(target);
-        if (be instanceof RedstoneChainEntity other) {
-            mergeWithOtherNetwork(other);
+        if (be instanceof RedstoneChainEntity) {
+            manager.merge(worldPosition, target);
         }
     }
 
+    /**
+     * Returns the network manager of this entity's level.
+     *
+     * @return The manager, or null on the client or before the entity is placed in a level
+     */
+    private ChainNetworkManager getNetworkManager() {
+        if (level instanceof ServerLevel serverLevel) {
+            return ChainNetworkManager.get(serverLevel);
+        }
+        return null;
+    }
+
     /**
      * Removes a connection from this chain block to another chain block.
      * <p>
@@ -286,11 +283,13 @@ public class RedstoneChainEntity extends BlockEntity {
      * <p>
      * What happens when a connection is removed:
      * 1. The target position is removed from the connections list
-     * 2. The network is marked as dirty (needs recalculation)
-     * 3. Changes are saved to disk
-     * 4. The client is synced so the cable disappears
-     * 5. Both this block's network and the target's network are invalidated
-     * - This forces both networks to rebuild, as they may have been split
+     * 2. Changes are saved to disk
+     * 3. The removal is sent to clients so the cable disappears
+     * 4. The network is checked for a split at the end of the tick (see
+     * ChainNetworkManager.queueSplitCheck) - only the blocks that actually became
+     * disconnected get a new network
+     * 5. If that was the last cable, this block entity is dropped (see
+     * RedstoneChainBlock.detachEntity) - the block stays in its network by adjacency
      * <p>
      * Note: This only removes the connection from THIS block to the target.
      * If there was a bidirectional connection, the target block also needs to
@@ -300,68 +299,14 @@ public class RedstoneChainEntity extends BlockEntity {
      */
     public void removeConnection(BlockPos target) {
         if (connections.remove(target)) {
-            networkDirty = true;
-            setChanged();
-            syncToClient();
-            invalidateNetwork();
-            if (level != null) {
-                BlockEntity be = level.getBlockEntity(target);
-                if (be instanceof RedstoneChainEntity cable) {
-                    cable.invalidateNetwork();
-                }
-            }
-        }
-    }
+            saveAndSync(target, false);
 
-    /**
-     * Marks this chain block's entire network as needing recalculation.
-     * <p>
-     * This method uses a breadth-first search to find ALL chain blocks connected to
-     * this one (directly or indirectly through other chain blocks), and marks each
-     * one's network as "dirty" (needing rebuild).
-     * <p>
-     * This is necessary when:
-     * - A connection is removed (network may have split into two separate networks)
-     * - A block is removed from the network
-     * - The network structure changes in any way
-     * <p>
-     * How it works:
-     * 1. Start with this block's position
-     * 2. Create a "visited" set to track which blocks we've already processed
-     * 3. Use a queue for breadth-first traversal
-     * 4. For each block in the queue:
-     * a. Skip if already visited
-     * b. Mark it as visited
-     * c. If it's a RedstoneChainEntity:
-     * - Set its networkDirty flag to true
-     * - Save the change
-     * - Add all its connections to the queue for processing
-     * 5. Continue until all reachable blocks are processed
-     * <p>
-     * This ensures that when you break a connection, both resulting networks
-     * properly rebuild themselves.
-     */
-    public void invalidateNetwork() {
-        if (level == null) return;
-
-        Set<BlockPos> visited = new HashSet<>();
-        Queue<BlockPos> queue = new LinkedList<>();
-        queue.add(this.worldPosition);
-
-        while (!queue.isEmpty()) {
-            BlockPos current = queue.poll();
-            if (!visited.add(current)) continue;
-
-            BlockEntity be = level.getBlockEntity(current);
-            if (be instanceof RedstoneChainEntity chain) {
-                chain.networkDirty = true;
-                chain.setChanged();
-
-                for (BlockPos neighbor : chain.getConnectedChains()) {
-                    if (!visited.contains(neighbor)) {
-                        queue.add(neighbor);
-                    }
-                }
+            ChainNetworkManager manager = getNetworkManager();
+            if (manager != null) {
+                manager.queueSplitCheck(List.of(worldPosition, target));
+            }
+            if (connections.isEmpty() && level != null && !level.isClientSide()) {
+                RedstoneChainBlock.detachEntity(level, worldPosition);
             }
         }
     }
@@ -375,458 +320,37 @@ public class RedstoneChainEntity extends BlockEntity {
      * What happens:
      * 1. Make a copy of the connections list (to avoid modification during iteration)
      * 2. Clear the connections list
-     * 3. Mark the network as dirty
-     * 4. Save changes to disk
-     * 5. Sync to client (cables disappear)
-     * 6. Invalidate this block's network
-     * 7. For each previously connected block:
-     * - Invalidate its network too
-     * - This ensures all affected networks rebuild properly
+     * 3. Save changes to disk (only if there were connections)
+     * 4. Send the removals to clients (cables disappear)
+     * 5. Check whether this block and its former peers are still connected
+     * - Only the parts that actually became disconnected get a new network
+     * 6. Drop this block entity if the block is still there (see RedstoneChainBlock.detachEntity)
      * <p>
-     * This is important for cleanup because when a block is removed, all blocks
-     * that were connected to it need to recalculate their networks.
+     * This is important for cleanup because when a block is removed, the blocks that
+     * were connected through it may now belong to separate networks.
      */
     public void clearConnections() {
         List<BlockPos> oldConnections = new ArrayList<>(connections);
         connections.clear();
-        networkDirty = true;
-        setChanged();
-        syncToClient();
-        invalidateNetwork();
-
-        if (level != null) {
-            for (BlockPos target : oldConnections) {
-                BlockEntity be = level.getBlockEntity(target);
-                if (be instanceof RedstoneChainEntity chain) {
-                    chain.invalidateNetwork();
-                }
-            }
-        }
-    }
-
-    /**
-     * Returns a list of positions that are valid chain block connections.
-     * <p>
-     * This method filters the connections list to only include positions that:
-     * 1. Actually have a block entity at that location
-     * 2. That block entity is a RedstoneChainEntity
-     * 3. The position hasn't already been added to the result (prevents duplicates)
-     * <p>
-     * This is different from getConnections() because it validates that the
-     * connected blocks still exist and are still chain blocks. This is useful
-     * for network traversal where you only want to follow valid connections.
-     * <p>
-     * Use cases:
-     * - Network building (rebuildNetwork)
-     * - Network invalidation (invalidateNetwork)
-     * - Any algorithm that needs to traverse the network graph
-     *
-     * @return A list of BlockPos for valid chain block connections
-     */
-    public List<BlockPos> getConnectedChains() {
-        List<BlockPos> result = new ArrayList<>();
-        if (level == null) return result;
-
-        for (BlockPos pos : connections) {
-            BlockEntity be = level.getBlockEntity(pos);
-            if (be instanceof RedstoneChainEntity && !result.contains(pos)) {
-                result.add(pos);
-            }
-        }
-        return result;
-    }
-
-    /**
-     * Rebuilds the network by discovering all connected chain blocks.
-     * <p>
-     * This method uses a breadth-first search (BFS) algorithm to find every chain block
-     * that is reachable from this one through connections. The result is stored in the
-     * 'network' set, which is used for power distribution.
-     * <p>
-     * How the algorithm works:
-     * 1. Create a 'visited' set to track blocks we've already processed
-     * 2. Create a queue and add this block's position as the starting point
-     * 3. While the queue has positions to process:
-     * a. Take a position from the front of the queue
-     * b. If we've already visited this position, skip it
-     * c. Mark this position as visited
-     * d. If there's a RedstoneChainEntity at this position:
-     * - Get all its valid chain connections
-     * - Add any unvisited connections to the queue
-     * 4. Once the queue is empty, we've found all reachable blocks
-     * 5. Clear the current network set and add all visited positions
-     * <p>
-     * The result is a complete graph of all interconnected chain blocks.
-     * This network is then used to:
-     * - Find external power sources (computeNetworkInputPower)
-     * - Distribute power evenly across all blocks (applySignalToNetwork)
-     */
-    public void rebuildNetwork() {
-        if (level == null) return;
-
-        Set<BlockPos> visited = new HashSet<>();
-        Queue<BlockPos> queue = new LinkedList<>();
-        queue.add(worldPosition);
-
-        while (!queue.isEmpty()) {
-            BlockPos current = queue.poll();
-            if (!visited.add(current)) continue;
-
-            BlockEntity be = level.getBlockEntity(current);
-            if (be instanceof RedstoneChainEntity chain) {
-                for (BlockPos neighbor : chain.getConnectedChains()) {
-                    if (!visited.contains(neighbor)) {
-                        queue.add(neighbor);
-                    }
-                }
-            }
-        }
-
-        network.clear();
-        network.addAll(visited);
-    }
-
-    /**
-     * Computes the maximum redstone input power for the entire network.
-     * <p>
-     * This method scans every block in the network and checks all their neighbors
-     * to find the strongest redstone signal being input from outside the network.
-     * <p>
-     * How it works:
-     * 1. Start with maxInput = 0
-     * 2. For each block position in the network:
-     *    a. Check all 6 directions (up, down, north, south, east, west)
-     *    b. Get the neighbor block in that direction
-     *    c. Skip if the neighbor is part of our network (RedstoneChainBlock)
-     *    d. Skip if the neighbor is vanilla redstone wire (we don't want to create loops)
-     *    e. Ask the neighbor for its redstone signal strength
-     *       - Uses level.getSignal() with opposite direction (due to Minecraft's API quirk)
-     *    f. If the signal is greater than 0, update maxInput to the higher value
-     * 3. Return the maximum input power found
-     * <p>
-     * This allows the network to receive power from:
-     * - Redstone torches
-     * - Levers, buttons, pressure plates
-     * - Repeaters and comparators
-     * - Powered blocks (blocks activated by redstone)
-     * - Any other redstone power source
-     * <p>
-     * The strongest signal found anywhere in the network becomes the network's power level.
-     *
-     * @return The maximum redstone power (0-15) from any external source
-     */
-    /**
-     * Computes the maximum redstone input power for the entire network.
-     * <p>
-     * Scans all blocks in the network and checks all their neighbors for redstone signals.
-     * Returns the strongest signal found from any external source (non-network block).
-     * <p>
-     * Ignores:
-     * - Other chain blocks in the network (to avoid counting internal signals)
-     * - Vanilla redstone wire (to prevent feedback loops)
-     *
-     * @return Maximum power level (0-15) from any external redstone source
-     */
-    private int computeNetworkInputPower() {
-        if (level == null) return 0;
-
-        int maxInput = 0;
-
-        // Check every block in the network for external power
-        for (BlockPos pos : network) {
-            int powerAtBlock = findMaxPowerAroundBlock(pos);
-            maxInput = Math.max(maxInput, powerAtBlock);
-        }
-
-        return maxInput;
-    }
-
-    /**
-     * Finds the maximum redstone power from neighbors of a single block.
-     * Checks all 6 directions (up, down, north, south, east, west).
-     *
-     * @param pos Position to check around
-     * @return Maximum power from neighbors (0-15)
-     */
-    private int findMaxPowerAroundBlock(BlockPos pos) {
-        int maxPower = 0;
-
-        // Check all 6 directions
-        for (Direction dir : Direction.values()) {
-            int powerFromDirection = getPowerFromDirection(pos, dir);
-            maxPower = Math.max(maxPower, powerFromDirection);
-        }
-
-        return maxPower;
-    }
-
-    /**
-     * Gets redstone power from a specific direction of a block.
-     * Returns 0 if the neighbor should be ignored (chain block or vanilla redstone).
-     *
-     * @param pos The block position we're checking from
-     * @param dir The direction to check
-     * @return Power level from that direction (0-15)
-     */
-    private int getPowerFromDirection(BlockPos pos, Direction dir) {
-        BlockPos neighborPos = pos.relative(dir);
-        BlockState neighborState = level.getBlockState(neighborPos);
-        Block block = neighborState.getBlock();
-
-        // Skip other chain blocks in network (internal connections)
-        if (block instanceof RedstoneChainBlock) {
-            return 0;
-        }
-
-        // Skip vanilla redstone wire (prevents feedback loops)
-        if (block instanceof RedStoneWireBlock) {
-            return 0;
-        }
-
-        // Get signal from this neighbor
-        // Note: dir.getOpposite() is used due to Minecraft's backwards direction API
-        return level.getSignal(neighborPos, dir.getOpposite());
-    }
-
-    /**
-     * Applies a redstone signal strength to all blocks in the network.
-     * <p>
-     * This method updates the POWER property of every RedstoneChainBlock in the network
-     * to the specified signal strength. This is how power gets distributed across
-     * connected chain blocks.
-     * <p>
-     * How it works:
-     * 1. For each position in the network:
-     * a. Get the current block state at that position
-     * b. Verify it's actually a RedstoneChainBlock (safety check)
-     * c. Get the current POWER value from the block state
-     * d. If the current power is different from the target signal:
-     * - Create a new block state with the updated POWER value
-     * - Set the block in the world (flag 3 = update neighbors & send to client)
-     * 2. Only update blocks that actually need changing (performance optimization)
-     * <p>
-     * The flag value of 3 means:
-     * - Bit 0 (1): Send the block update to clients (they see the visual change)
-     * - Bit 1 (2): Update neighboring blocks (notifies redstone components)
-     * <p>
-     * This ensures that:
-     * - All chain blocks in the network have the same power level
-     * - Visual feedback (block state) is synchronized across server and client
-     * - Neighboring redstone components are notified of power changes
-     *
-     * @param signal The redstone signal strength (0-15) to apply to all network blocks
-     */
-    private void applySignalToNetwork(int signal) {
-        if (level == null) return;
-
-        for (BlockPos pos : network) {
-            BlockState state = level.getBlockState(pos);
-            if (state.getBlock() instanceof RedstoneChainBlock) {
-                int old = state.getValue(RedstoneChainBlock.POWER);
-                if (old != signal) {
-                    level.setBlock(pos, state.setValue(RedstoneChainBlock.POWER, signal), 3);
-                }
-            }
+        // Nothing to save if there were no connections
+        if (!oldConnections.isEmpty()) {
+            markConnectionsChanged();
         }
-    }
-
-    /**
-     * Updates the redstone signal for the entire network.
-     * <p>
-     * This is the main method that orchestrates network power calculation and distribution.
-     * It's called when:
-     * - A neighbor block changes (via neighborChanged in RedstoneChainBlock)
-     * - The network structure changes (connections added/removed)
-     * - Periodic tick updates
-     * <p>
-     * The method includes several important features:
-     * <p>
-     * FEEDBACK LOOP PROTECTION:
-     * - Uses the 'isUpdating' flag to prevent recursive calls
-     * - If already updating, exits immediately
-     * - Sets flag at start, clears in finally block (ensures cleanup even if exception occurs)
-     * <p>
-     * NETWORK REBUILD:
-     * - Checks if network is dirty (needs rebuild)
-     * - Calls rebuildNetwork() to discover all connected blocks
-     * - Clears the dirty flag once rebuild is complete
-     * <p>
-     * SIGNAL CALCULATION:
-     * - Calls computeNetworkInputPower() to find the strongest input signal
-     * - If input > 0: Updates cached signal and resets the "no input" counter
-     * - If input = 0: Increments the "no input" counter
-     *   - After SIGNAL_LOSS_DELAY ticks without input, clears the cached signal
-     *   - This prevents instant signal loss, providing stability
-     * <p>
-     * SIGNAL DISTRIBUTION:
-     * - Calls applySignalToNetwork() with the cached signal
-     * - All blocks in the network get updated to the same power level
-     * <p>
-     * This method ensures smooth, stable power distribution across the network
-     * while preventing infinite loops and signal flickering.
-     */
-    /**
-     * Updates the redstone signal for the entire network.
-     * <p>
-     * This is the main coordination method that:
-     * 1. Prevents feedback loops using isUpdating flag
-     * 2. Rebuilds network if structure changed
-     * 3. Checks for external power input
-     * 4. Updates cached signal with delay to prevent flickering
-     * 5. Distributes signal to all blocks in network
-     * <p>
-     * Called by:
-     * - neighborChanged() when adjacent blocks change
-     * - Periodic ticker every UPDATE_INTERVAL ticks
-     * - When connections are added/removed
-     */
-    public void updateSignalInNetwork() {
-        // Prevent infinite recursion (feedback loop protection)
-        if (isUpdating) {
-            return;
+        for (BlockPos target : oldConnections) {
+            syncToClient(target, false);
         }
 
-        isUpdating = true;
-        try {
-            // Step 1: Ensure network is up-to-date
-            ensureNetworkIsBuilt();
-
-            // Step 2: Check for external power input
-            int currentInput = computeNetworkInputPower();
-
-            // Step 3: Update cached signal with delay (prevents flickering)
-            updateCachedSignal(currentInput);
-
-            // Step 4: Distribute the signal to all blocks
-            applySignalToNetwork(cachedInputSignal);
-
-        } finally {
-            // Always clear the updating flag, even if an exception occurs
-            isUpdating = false;
+        ChainNetworkManager manager = getNetworkManager();
+        // A broken block has already left its network and checked its former links
+        // (see ChainNetworkManager.removeBlock)
+        if (manager != null && manager.getNetworkId(worldPosition) != ChainNetworkManager.NO_NETWORK) {
+            List<BlockPos> endpoints = new ArrayList<>(oldConnections.size() + 1);
+            endpoints.add(worldPosition);
+            endpoints.addAll(oldConnections);
+            manager.queueSplitCheck(endpoints);
         }
-    }
-
-    /**
-     * Rebuilds the network if it's marked as dirty.
-     * After rebuilding, clears the dirty flag.
-     */
-    private void ensureNetworkIsBuilt() {
-        if (networkDirty) {
-            rebuildNetwork();
-            networkDirty = false;
-        }
-    }
-
-    /**
-     * Updates the cached signal based on current input.
-     * Implements a delay before clearing signal to prevent flickering.
-     *
-     * @param currentInput The current power level from external sources
-     */
-    private void updateCachedSignal(int currentInput) {
-        if (currentInput > 0) {
-            // Power detected - update cache immediately and reset delay counter
-            cachedInputSignal = currentInput;
-            ticksWithoutInput = 0;
-        } else {
-            // No power - increment delay counter
-            ticksWithoutInput++;
-
-            // Only clear signal after delay period has passed
-            if (ticksWithoutInput >= Config.SIGNAL_LOSS_DELAY_TICKS.getAsInt()) {
-                cachedInputSignal = 0;
-            }
-            // Otherwise keep the cached signal (prevents flickering)
-        }
-    }
-
-    /**
-     * Merges this network with another network.
-     * <p>
-     * This is called when a new connection is added between two chain blocks that
-     * may already be part of different networks. Instead of rebuilding both networks
-     * from scratch, this efficiently merges them.
-     * <p>
-     * How the merge works:
-     * 1. Get both network sets (this block's and the other block's)
-     * 2. Determine which network is larger
-     * 3. Start with the larger network as the base (optimization)
-     * 4. Add all blocks from the smaller network to it
-     * 5. For every block in the merged set:
-     * a. Get its block entity
-     * b. If it's a RedstoneChainEntity:
-     * - Replace its network set with the merged set
-     * - Mark it as NOT dirty (network is now up-to-date)
-     * <p>
-     * Why merge instead of rebuild?
-     * - More efficient: O(n+m) instead of potentially O((n+m)²) for BFS rebuild
-     * - Preserves existing network information
-     * - Prevents unnecessary recalculation
-     * <p>
-     * After the merge, all blocks in both original networks now share the same
-     * network set and will calculate/distribute power as one unified network.
-     *
-     * @param other The other RedstoneChainEntity whose network should be merged with this one
-     */
-    private void mergeWithOtherNetwork(RedstoneChainEntity other) {
-        if (level == null) return;
-
-        Set<BlockPos> network1 = new HashSet<>(this.network);
-        Set<BlockPos> network2 = new HashSet<>(other.network);
-
-        Set<BlockPos> larger = network1.size() >= network2.size() ? network1 : network2;
-        Set<BlockPos> smaller = network1.size() < network2.size() ? network1 : network2;
-
-        Set<BlockPos> merged = new HashSet<>(larger);
-        merged.addAll(smaller);
-
-        for (BlockPos pos : merged) {
-            BlockEntity be = level.getBlockEntity(pos);
-            if (be instanceof RedstoneChainEntity chain) {
-                chain.network.clear();
-                chain.network.addAll(merged);
-                chain.networkDirty = false;
-            }
-        }
-    }
-
-    /**
-     * Called every game tick (20 times per second) for this block entity.
-     * <p>
-     * This is the ticker method that Minecraft calls automatically for block entities
-     * that have registered a ticker (see RedstoneChainBlock.getTicker).
-     * <p>
-     * What happens every tick:
-     * 1. First, validate this is actually a RedstoneChainEntity (type safety)
-     * 2. If on client side, return immediately (all logic is server-side only)
-     * 3. Increment the tick counter (ticksSinceLastUpdate)
-     * 4. When the counter reaches UPDATE_INTERVAL (20 ticks = 1 second):
-     * - Reset the counter to 0
-     * - Call updateSignalInNetwork() to recalculate and distribute power
-     * <p>
-     * Why periodic updates instead of event-driven only?
-     * - Catches edge cases where neighbor updates might be missed
-     * - Ensures networks stay synchronized even if some updates are lost
-     * - Provides a "heartbeat" for the network that can detect and fix issues
-     * - Once per second is frequent enough for responsiveness but light on performance
-     * - If someone breaks an intermittent connection, the periodic update will detect it and fix it (turn off power)
-     * <p>
-     * This combines with event-driven updates (neighborChanged) to create a robust
-     * system that responds quickly to changes but also self-corrects periodically.
-     *
-     * @param level The world/level containing this block entity
-     * @param pos   The position of this block entity
-     * @param state The block state of this block entity
-     * @param be    The block entity itself (type-checked to RedstoneChainEntity)
-     */
-    public static <T extends BlockEntity> void tick(Level level, BlockPos pos, BlockState state, T be) {
-        if (!(be instanceof RedstoneChainEntity chain)) return;
-        if (level.isClientSide) return;
-
-        chain.ticksSinceLastUpdate++;
-        if (chain.ticksSinceLastUpdate >= Config.UPDATE_INTERVAL_TICKS.getAsInt()) {
-            chain.ticksSinceLastUpdate = 0;
-            chain.updateSignalInNetwork();
+        if (level != null && !level.isClientSide()) {
+            RedstoneChainBlock.detachEntity(level, worldPosition);
         }
     }
 
@@ -834,8 +358,8 @@ public class RedstoneChainEntity extends BlockEntity {
      * Returns the current redstone signal strength of this chain block.
      * <p>
      * This is a simple helper method that reads the POWER value from the block state.
-     * It's used by RedstoneChainBlock.getSignal() to provide the signal strength
-     * to neighboring blocks.
+     * It matches what RedstoneChainBlock.getSignal() provides to neighboring blocks, which
+     * reads the state directly since only cabled blocks have a block entity.
      * <p>
      * The value returned is between 0-15:
      * - 0 means no power (unpowered)
@@ -849,37 +373,60 @@ public class RedstoneChainEntity extends BlockEntity {
     }
 
     /**
-     * Synchronizes this block entity's data to connected clients.
+     * Sends a cable change of this block entity to connected clients.
      * <p>
      * In Minecraft, the server and client maintain separate worlds. When data changes
      * on the server (like connection lists), the client needs to be notified so it can
      * update its rendering.
      * <p>
-     * This method:
-     * 1. Checks if we're on the server (!level.isClientSide)
+     * Clients get the full connection list once per chunk (see ChainChunkTopologyPayload).
+     * After that only the change is sent, not the whole block entity:
+     * 1. The change is recorded with the level's ChainNetworkManager
      * - Client-side calls are ignored (no need to sync from client to server)
-     * 2. Calls level.sendBlockUpdated() which:
-     * - Sends a packet to all clients watching this chunk
-     * - The packet contains the updated block entity data
-     * - Clients receive the packet and update their local copy
+     * 2. At the end of the tick, all changes of a block are sent as one ChainTopologyPayload
+     * to the players tracking its chunk
+     * 3. Clients apply it to their copy (see applyTopologyChange())
      * <p>
-     * The flag value of 3 means:
-     * - Bit 0 (1): Send the update to clients
-     * - Bit 1 (2): Cause a block update (re-render)
-     * <p>
-     * This is crucial for:
-     * - Rendering cables when connections change
-     * - Updating visual power levels
-     * - Keeping client and server in sync
-     * <p>
-     * Without this, players wouldn't see cables appear/disappear or power changes.
+     * Without this, players wouldn't see cables appear or disappear. Power levels are part
+     * of the block state and reach clients with the regular block updates.
+     *
+     * @param target Position of the peer
+     * @param added  Whether the cable was added (true) or removed (false)
      */
-    private void syncToClient() {
-        if (level != null && !level.isClientSide) {
-            level.sendBlockUpdated(getBlockPos(), getBlockState(), getBlockState(), 3);
+    private void syncToClient(BlockPos target, boolean added) {
+        ChainNetworkManager manager = getNetworkManager();
+        if (manager != null) {
+            manager.recordLinkChange(worldPosition, target, added);
         }
     }
 
+    /**
+     * Applies a cable change received from the server (see ChainTopologyPayload).
+     * Only called on the client.
+     *
+     * @param added   Peers that were connected
+     * @param removed Peers that were disconnected
+     */
+    public void applyTopologyChange(List<BlockPos> added, List<BlockPos> removed) {
+        connections.removeAll(removed);
+        for (BlockPos target : added) {
+            if (!connections.contains(target)) {
+                connections.add(target);
+            }
+        }
+    }
+
+    /**
+     * Replaces the connections with the ones from a chunk snapshot (see ChainChunkTopologyPayload).
+     * Only called on the client.
+     *
+     * @param snapshot The connections of this block on the server
+     */
+    public void setConnectionsFromServer(List<BlockPos> snapshot) {
+        connections.clear();
+        connections.addAll(snapshot);
+    }
+
     // ===== SERIALIZATION =====
     // These methods handle saving and loading data to/from disk and syncing to clients
 
@@ -894,16 +441,16 @@ public class RedstoneChainEntity extends BlockEntity {
      * <p>
      * What gets saved:
      * 1. First, call the parent class to save standard data (position, etc.)
-     * 2. Create a ListTag to hold all connection positions
-     * 3. For each connection:
-     * a. Create a CompoundTag (like a JSON object)
-     * b. Store the x, y, z coordinates as integers
-     * c. Add this tag to the list
-     * 4. Store the list in the main tag under the key "Connections"
+     * 2. Pack every connection position into a long (BlockPos.asLong())
+     * 3. Store the packed positions as one LongArrayTag under the key "Links"
+     * <p>
+     * A packed link takes 8 bytes, where the legacy format (a ListTag of CompoundTags with
+     * "x", "y" and "z" entries under "Connections") took more than 40. loadAdditional() still
+     * reads the legacy format; the block entity is written in the packed format on its next save.
      * <p>
      * Why save connections but not the network?
      * - Connections are the fundamental data (what we explicitly created)
-     * - The network can be rebuilt from connections (it's derived data)
+     * - The network can be rebuilt from connections (it's derived data, owned by ChainNetworkManager)
      * - This saves disk space and prevents stale network data
      * <p>
      * When the world loads, loadAdditional() will read this data back.
@@ -915,15 +462,11 @@ public class RedstoneChainEntity extends BlockEntity {
     protected void saveAdditional(CompoundTag tag, HolderLookup.Provider registries) {
         super.saveAdditional(tag, registries);
 
-        ListTag list = new ListTag();
-        for (BlockPos pos : connections) {
-            CompoundTag posTag = new CompoundTag();
-            posTag.putInt("x", pos.getX());
-            posTag.putInt("y", pos.getY());
-            posTag.putInt("z", pos.getZ());
-            list.add(posTag);
+        long[] links = new long[connections.size()];
+        for (int i = 0; i < links.length; i++) {
+            links[i] = connections.get(i).asLong();
         }
-        tag.put("Connections", list);
+        tag.putLongArray(LINKS_TAG, links);
     }
 
     /**
@@ -937,18 +480,13 @@ public class RedstoneChainEntity extends BlockEntity {
      * What gets loaded:
      * 1. First, call the parent class to load standard data
      * 2. Clear the current connections list (start fresh)
-     * 3. Get the "Connections" list from the NBT tag
+     * 3. If the tag has packed "Links", unpack each long into a BlockPos
+     * 4. Otherwise read the legacy "Connections" list, written before links were packed
      * - TAG_COMPOUND (10) indicates we're reading CompoundTags from the list
-     * 4. For each entry in the list:
-     * a. Cast it to CompoundTag
-     * b. Read the x, y, z integers
-     * c. Create a BlockPos from those coordinates
-     * d. Add it to the connections list
-     * 5. Mark the network as dirty (needs rebuild)
-     * - The network isn't saved, so we need to rebuild it from connections
+     * - Each entry holds the x, y, z coordinates of one connection
      * <p>
-     * After loading, the block entity has the same connections it had when saved,
-     * and will rebuild its network on the next update.
+     * After loading, the block entity has the same connections it had when saved.
+     * It is not part of any network yet, so it rebuilds its network on the next update.
      *
      * @param tag        The NBT tag to read data from
      * @param registries Registry access for complex data types (not used here)
@@ -958,70 +496,111 @@ public class RedstoneChainEntity extends BlockEntity {
         super.loadAdditional(tag, registries);
 
         connections.clear();
-        ListTag list = tag.getList("Connections", Tag.TAG_COMPOUND);
+        if (tag.contains(LINKS_TAG, Tag.TAG_LONG_ARRAY)) {
+            for (long link : tag.getLongArray(LINKS_TAG)) {
+                connections.add(BlockPos.of(link));
+            }
+            return;
+        }
+
+        // Legacy format
+        ListTag list = tag.getList(LEGACY_CONNECTIONS_TAG, Tag.TAG_COMPOUND);
         for (Tag t : list) {
             CompoundTag posTag = (CompoundTag) t;
             connections.add(new BlockPos(posTag.getInt("x"), posTag.getInt("y"), posTag.getInt("z")));
         }
-        networkDirty = true;
     }
 
     /**
-     * Creates a packet to sync this block entity's data to clients.
+     * Called when this block entity is added to the level.
+     * <p>
+     * On the client, applies cable updates that arrived before this block entity did (see
+     * ChainTopologyPayload.handle()).
+     */
+    @Override
+    public void onLoad() {
+        super.onLoad();
+        if (level != null && level.isClientSide()) {
+            ChainTopologyPayload.applyPending(this);
+        }
+    }
+
+    /**
+     * Called when this block entity's chunk is unloading, before setRemoved().
      * <p>
-     * This method is called when the client needs to be updated about changes to this
-     * block entity. It's part of Minecraft's client-server synchronization system.
+     * The block stays in its network as a virtual node with its cable connections, so the
+     * network keeps its topology and power while this chunk is unloaded.
+     */
+    @Override
+    public void onChunkUnloaded() {
+        super.onChunkUnloaded();
+        ChainNetworkManager manager = getNetworkManager();
+        if (manager != null) {
+            manager.unload(worldPosition, connections);
+        }
+    }
+
+    /**
+     * Called when this block entity is removed from the level: the block was broken, its
+     * chunk was unloaded, or its last cable was removed.
      * <p>
-     * The packet contains:
-     * - The position of this block entity
-     * - The data from getUpdateTag() (which includes our connections list)
+     * Removes this block from its network in the ChainNetworkManager so no stale member
+     * is kept around. Blocks of unloading chunks already became virtual nodes in
+     * onChunkUnloaded() and are kept, as are chain blocks that just lost their entity.
+     */
+    @Override
+    public void setRemoved() {
+        ChainNetworkManager manager = getNetworkManager();
+        if (manager != null) {
+            manager.remove(level, worldPosition);
+        }
+        super.setRemoved();
+    }
+
+    /**
+     * Returns the packet vanilla sends to clients when this block entity changes.
      * <p>
-     * When the packet is sent:
-     * 1. Server calls this method to create the packet
-     * 2. Packet is sent to all clients watching this chunk
-     * 3. Clients receive the packet and update their local copy
-     * 4. The renderer uses the updated data to draw cables
+     * Vanilla sends it for every block update at this position, including every POWER
+     * change, which used to resend the whole connection list each time. Cable changes are
+     * sent as deltas instead (see syncToClient()), so no update packet is needed: returning
+     * null tells Minecraft to skip it.
      * <p>
-     * This is called automatically by syncToClient() via level.sendBlockUpdated().
+     * The full connection list still reaches clients with the chunk (see getUpdateTag()).
      *
-     * @return A packet containing this block entity's data for client sync
+     * @return Always null (no block entity update packet)
      */
     @Override
     public ClientboundBlockEntityDataPacket getUpdatePacket() {
-        return ClientboundBlockEntityDataPacket.create(this);
+        return null;
     }
 
     /**
      * Creates an NBT tag containing data for client synchronization.
      * <p>
-     * This method is called when the client needs a complete snapshot of this block
-     * entity's data. It's used in conjunction with getUpdatePacket().
+     * This method is called when the chunk is sent to a client; the tag travels inside the
+     * chunk packet, once per block entity.
      * <p>
-     * What this method does:
-     * 1. Creates a new empty CompoundTag
-     * 2. Calls saveAdditional() to populate it with our data
-     * - This includes the connections list
-     * 3. Returns the populated tag
+     * The tag is intentionally empty. The connections of all cabled blocks in the chunk
+     * follow as one ChainChunkTopologyPayload once the player is close enough (see
+     * ChainTopologySync), which the client applies in one pass instead of decoding one
+     * connection list per block entity. Later changes are sent as deltas
+     * (see syncToClient()).
      * <p>
      * The difference between this and saveAdditional():
      * - saveAdditional() is for saving to disk (world save files)
      * - getUpdateTag() is for syncing to clients (network packets)
-     * - We use the same data format for both (they need the same information)
      * <p>
      * When a client joins or a chunk is loaded on the client:
-     * 1. Server calls this method
-     * 2. Returns a tag with all connection data
-     * 3. Tag is sent to the client in a packet
-     * 4. Client's copy of this block entity is updated
-     * 5. Renderer draws cables based on the connections
+     * 1. Server calls this method for every block entity in the chunk
+     * 2. The client creates its copy of this block entity, without connections
+     * 3. The chunk's ChainChunkTopologyPayload fills in the connections when the player is near
+     * 4. Renderer draws cables based on the connections
      *
      * @param registries Registry access for complex data types
-     * @return An NBT tag containing this block entity's data for client sync
+     * @return An empty NBT tag
      */
     @Override
     public CompoundTag getUpdateTag(HolderLookup.Provider registries) {
-        CompoundTag tag = new CompoundTag();
-        saveAdditional(tag, registries);
-        return tag;
+        return new CompoundTag();
     }
 }
@@ -117,12 +117,24 @@ public class RedstoneWire {
         BLOCK_ENTITY_TYPES.register(modEventBus);
         // Register the Deferred Register to the mod event bus so data component types get registered
         DATA_COMPONENT_TYPES.register(modEventBus);
+        // Register the payloads that send cables and cable changes to clients
+        modEventBus.addListener(ChainTopologyPayload::register);
+        modEventBus.addListener(ChainChunkTopologyPayload::register);
 
         // Register ourselves for server and other game events we are interested in.
         // Note that this is necessary if and only if we want *this* class (RedstoneWire) to respond directly to events.
         // Do not add this line if there are no @SubscribeEvent-annotated functions in this class, like onServerStarting() below.
         NeoForge.EVENT_BUS.register(this);
 
+        // Evaluate redstone chain networks once per level tick instead of per block entity,
+        // and keep the members of unloading chunks as virtual nodes until they load again
+        NeoForge.EVENT_BUS.addListener(ChainNetworkManager::onLevelTick);
+        NeoForge.EVENT_BUS.addListener(ChainNetworkManager::onChunkLoad);
+        NeoForge.EVENT_BUS.addListener(ChainNetworkManager::onChunkUnload);
+        // Stream the cables of the chunks players track, nearest first
+        NeoForge.EVENT_BUS.addListener(ChainTopologySync::onChunkSent);
+        NeoForge.EVENT_BUS.addListener(ChainTopologySync::onChunkUnwatch);
+
         // Register the item to a creative tab
         modEventBus.addListener(this::addCreative);
 
@@ -0,0 +1,132 @@
+package at.osa.redstonewire;
+
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+/**
+ * Timing wheel that spreads the periodic validation of awake networks over the update interval.
+ * <p>
+ * Previously all networks were validated on the same tick every UPDATE_INTERVAL ticks, which
+ * showed up as regular MSPT spikes. Here every scheduled network gets its own slot (assigned
+ * round-robin), and each tick only the networks of the current slot become due.
+ * <p>
+ * Due networks are kept in a backlog. The caller takes entries from the backlog until its
+ * per-tick time budget is used up; whatever does not fit simply stays for the next tick.
+ * <p>
+ * Entries are plain anchor positions; resolving them to a network (and dropping stale
+ * entries) is the job of the ChainNetworkManager.
+ */
+final class ValidationWheel {
+
+    /**
+     * Anchors per slot. The wheel has one slot per tick of the update interval.
+     */
+    private LongArrayList[] slots = new LongArrayList[0];
+
+    /**
+     * Anchors that are due but did not fit into a previous tick's budget, oldest first.
+     */
+    private final LongArrayFIFOQueue backlog = new LongArrayFIFOQueue();
+
+    /**
+     * Slot that became due in the current tick.
+     */
+    private int currentSlot = 0;
+
+    /**
+     * Round-robin cursor for assigning slots to newly scheduled anchors.
+     */
+    private int nextSlot = 0;
+
+    /**
+     * Schedules an anchor for validation. New anchors are distributed round-robin over
+     * all slots, so networks woken in the same tick are validated on different ticks.
+     *
+     * @param anchor Packed member position of the network
+     */
+    void schedule(long anchor) {
+        if (slots.length == 0) {
+            // Not advanced yet - validate on the first tick
+            backlog.enqueue(anchor);
+            return;
+        }
+        slots[nextSlot].add(anchor);
+        nextSlot = (nextSlot + 1) % slots.length;
+    }
+
+    /**
+     * Schedules an anchor that was just validated again, one full interval from now.
+     * This keeps each network on a stable phase.
+     *
+     * @param anchor Packed member position of the network
+     */
+    void reschedule(long anchor) {
+        if (slots.length == 0) {
+            backlog.enqueue(anchor);
+            return;
+        }
+        slots[currentSlot].add(anchor);
+    }
+
+    /**
+     * Moves the wheel forward by one tick and appends the anchors of the new slot to the backlog.
+     *
+     * @param interval Current update interval in ticks (the wheel is resized when it changes)
+     */
+    void advance(int interval) {
+        if (slots.length != interval) {
+            resize(interval);
+        }
+
+        currentSlot = (currentSlot + 1) % slots.length;
+        LongArrayList due = slots[currentSlot];
+        for (int i = 0; i < due.size(); i++) {
+            backlog.enqueue(due.getLong(i));
+        }
+        due.clear();
+    }
+
+    boolean hasBacklog() {
+        return !backlog.isEmpty();
+    }
+
+    /**
+     * Takes the oldest due anchor from the backlog.
+     *
+     * @return Packed member position of the network
+     */
+    long poll() {
+        return backlog.dequeueLong();
+    }
+
+    /**
+     * Number of scheduled and due anchors. Useful for debugging and tests.
+     */
+    int size() {
+        int size = backlog.size();
+        for (LongArrayList slot : slots) {
+            size += slot.size();
+        }
+        return size;
+    }
+
+    /**
+     * Rebuilds the wheel for a new interval (e.g. after a config change),
+     * redistributing all scheduled anchors round-robin.
+     */
+    private void resize(int interval) {
+        LongArrayList[] old = slots;
+        slots = new LongArrayList[interval];
+        for (int i = 0; i < interval; i++) {
+            slots[i] = new LongArrayList();
+        }
+        currentSlot = 0;
+        nextSlot = 0;
+
+        for (LongArrayList slot : old) {
+            for (int i = 0; i < slot.size(); i++) {
+                schedule(slot.getLong(i));
+            }
+        }
+    }
+}
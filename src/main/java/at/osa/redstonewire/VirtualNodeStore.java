@@ -0,0 +1,197 @@
+package at.osa.redstonewire;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.longs.LongSets;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.world.level.ChunkPos;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Last-known state of network members whose chunks are not loaded ("virtual nodes").
+ * <p>
+ * When a chunk unloads, its chain blocks stay in the ChainGraph instead of leaving it.
+ * Their block entities are gone, so this store keeps what the graph still needs from them:
+ * - The cable links, so traversals and split checks can walk through the unloaded part
+ * - The packed input faces, i.e. the last-known input contribution to the network
+ * <p>
+ * A network crossing unloaded chunks therefore keeps its topology and its power. It is not
+ * torn apart and rebuilt whenever a chunk at its border unloads and loads again.
+ * <p>
+ * The store is persisted by the ChainNetworkManager, so the topology of unloaded members
+ * survives a restart.
+ */
+final class VirtualNodeStore {
+
+    private static final long[] NO_LINKS = new long[0];
+
+    /**
+     * Cable peers (packed positions) of every virtual node.
+     */
+    private final Long2ObjectOpenHashMap<long[]> links = new Long2ObjectOpenHashMap<>();
+
+    /**
+     * Packed input faces of every virtual node (see ChainNetwork.FACE_BITS).
+     * Nodes without input faces have no entry.
+     */
+    private final Long2IntOpenHashMap faces = new Long2IntOpenHashMap();
+
+    /**
+     * Virtual nodes per chunk (ChunkPos key), so a loading chunk finds its nodes directly.
+     */
+    private final Long2ObjectOpenHashMap<LongOpenHashSet> byChunk = new Long2ObjectOpenHashMap<>();
+
+    boolean contains(long pos) {
+        return links.containsKey(pos);
+    }
+
+    int size() {
+        return links.size();
+    }
+
+    /**
+     * Records a member as virtual.
+     *
+     * @param pos        Packed member position
+     * @param cableLinks Packed positions of its cable peers
+     * @param inputFaces Its packed input faces at the time it unloaded
+     */
+    void add(long pos, long[] cableLinks, int inputFaces) {
+        links.put(pos, cableLinks);
+        if (inputFaces != 0) {
+            faces.put(pos, inputFaces);
+        } else {
+            faces.remove(pos);
+        }
+        byChunk.computeIfAbsent(chunkKey(pos), k -> new LongOpenHashSet()).add(pos);
+    }
+
+    /**
+     * Forgets a virtual node, e.g. because its chunk loaded again.
+     *
+     * @param pos Packed member position
+     * @return The cable peers of the node (empty if it was not virtual)
+     */
+    long[] remove(long pos) {
+        long[] removed = links.remove(pos);
+        if (removed == null) return NO_LINKS;
+
+        faces.remove(pos);
+        long chunk = chunkKey(pos);
+        LongOpenHashSet inChunk = byChunk.get(chunk);
+        if (inChunk != null && inChunk.remove(pos) && inChunk.isEmpty()) {
+            byChunk.remove(chunk);
+        }
+        return removed;
+    }
+
+    /**
+     * Drops a single cable link of a virtual node, e.g. because its loaded peer was broken.
+     */
+    void removeLink(long pos, long peer) {
+        long[] current = links.get(pos);
+        if (current == null) return;
+
+        LongArrayList kept = new LongArrayList(current.length);
+        for (long link : current) {
+            if (link != peer) kept.add(link);
+        }
+        if (kept.size() != current.length) {
+            links.put(pos, kept.toLongArray());
+        }
+    }
+
+    long[] getLinks(long pos) {
+        return links.getOrDefault(pos, NO_LINKS);
+    }
+
+    int getInputFaces(long pos) {
+        return faces.get(pos);
+    }
+
+    /**
+     * Returns the virtual nodes inside a chunk.
+     *
+     * @param chunkPos The chunk
+     * @return Packed positions (empty if the chunk has none)
+     */
+    LongSet positionsIn(ChunkPos chunkPos) {
+        LongOpenHashSet inChunk = byChunk.get(chunkPos.toLong());
+        return inChunk == null ? LongSets.EMPTY_SET : inChunk;
+    }
+
+    void forEach(LongConsumer consumer) {
+        for (LongIterator it = links.keySet().iterator(); it.hasNext(); ) {
+            consumer.accept(it.nextLong());
+        }
+    }
+
+    private static long chunkKey(long pos) {
+        return ChunkPos.asLong(SectionPos.blockToSectionCoord(BlockPos.getX(pos)),
+                SectionPos.blockToSectionCoord(BlockPos.getZ(pos)));
+    }
+
+    // ===== Persistence =====
+
+    /**
+     * Writes the store as flat primitive arrays:
+     * - "Positions": packed node positions
+     * - "Faces": packed input faces, one per position
+     * - "LinkCounts": number of cable links, one per position
+     * - "Links": all cable links, concatenated in position order
+     */
+    CompoundTag save() {
+        long[] positions = new long[links.size()];
+        int[] faceValues = new int[positions.length];
+        int[] linkCounts = new int[positions.length];
+        LongArrayList allLinks = new LongArrayList();
+
+        int i = 0;
+        for (Long2ObjectMap.Entry<long[]> entry : links.long2ObjectEntrySet()) {
+            positions[i] = entry.getLongKey();
+            faceValues[i] = faces.get(entry.getLongKey());
+            linkCounts[i] = entry.getValue().length;
+            allLinks.addElements(allLinks.size(), entry.getValue());
+            i++;
+        }
+
+        CompoundTag tag = new CompoundTag();
+        tag.putLongArray("Positions", positions);
+        tag.putIntArray("Faces", faceValues);
+        tag.putIntArray("LinkCounts", linkCounts);
+        tag.putLongArray("Links", allLinks.toLongArray());
+        return tag;
+    }
+
+    /**
+     * Reads a store written by save(). Malformed data (mismatching array lengths) is ignored.
+     */
+    void load(CompoundTag tag) {
+        long[] positions = tag.getLongArray("Positions");
+        int[] faceValues = tag.getIntArray("Faces");
+        int[] linkCounts = tag.getIntArray("LinkCounts");
+        long[] allLinks = tag.getLongArray("Links");
+        if (faceValues.length != positions.length || linkCounts.length != positions.length) {
+            return;
+        }
+
+        int offset = 0;
+        for (int i = 0; i < positions.length; i++) {
+            int count = linkCounts[i];
+            if (count < 0 || offset + count > allLinks.length) return;
+
+            long[] nodeLinks = new long[count];
+            System.arraycopy(allLinks, offset, nodeLinks, 0, count);
+            offset += count;
+            add(positions[i], nodeLinks, faceValues[i]);
+        }
+    }
+}
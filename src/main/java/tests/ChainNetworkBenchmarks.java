@@ -0,0 +1,146 @@
+package tests;
+
+import at.osa.redstonewire.ChainLevelAccess;
+import at.osa.redstonewire.ChainNetworkManager;
+import at.osa.redstonewire.RedstoneChainBlock;
+import at.osa.redstonewire.RedstoneWire;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.gametest.framework.GameTest;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.Blocks;
+import net.neoforged.neoforge.gametest.GameTestHolder;
+import net.neoforged.neoforge.gametest.PrefixGameTestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+// Micro benchmarks for network passes. They log their timings and only fail if the
+// measured variants disagree on the result - timings depend too much on the machine.
+@GameTestHolder("redstone_wire")
+public class ChainNetworkBenchmarks {
+
+    // The line is built high above the structure, so it does not run into neighboring tests:
+    //
+    //        x →
+    //      0 ─────────────── 47
+    //    ┌──────────────────────
+    // z 2│ C C C ...........  C
+    //    │                    C
+    //    │                    ⋮
+    //  47│                    C      (y = 40)
+    private static final int LINE_Y = 40;
+    private static final int LINE_Z = 2;
+    private static final int LINE_LENGTH = 48; // Crosses at least 2 chunk borders per leg
+    private static final int MIN_CHUNKS = 4;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 100;
+
+    @GameTest(template = "simplegametests.coordinatestest")
+    @PrefixGameTestTemplate(false)
+    public static void chunkCachedTraversal(GameTestHelper helper) {
+        ServerLevel level = helper.getLevel();
+        List<BlockPos> members = new ArrayList<>();
+
+        new SpecFlow(helper)
+                .given("A line of chain blocks spanning several chunks", () -> {
+                    for (int x = 0; x < LINE_LENGTH; x++) {
+                        members.add(placeChain(helper, new BlockPos(x, LINE_Y, LINE_Z)));
+                    }
+                    for (int z = LINE_Z + 1; z < LINE_Z + LINE_LENGTH; z++) {
+                        members.add(placeChain(helper, new BlockPos(LINE_LENGTH - 1, LINE_Y, z)));
+                    }
+
+                    LongOpenHashSet chunks = new LongOpenHashSet();
+                    for (BlockPos pos : members) {
+                        chunks.add(ChunkPos.asLong(pos));
+                    }
+                    helper.assertTrue(chunks.size() >= MIN_CHUNKS, "Line spans only " + chunks.size() + " chunks");
+                })
+                .and("The center of the first leg is cabled, so it has a block entity", () ->
+                        helper.assertTrue(RedstoneChainBlock.attachEntity(level, members.get(LINE_LENGTH / 2)) != null,
+                                "Cabled chain block has no block entity"))
+                .then("The line is one network", () -> {
+                    ChainNetworkManager manager = ChainNetworkManager.get(level);
+                    helper.assertValueEqual(manager.getMembers(members.getFirst()).size(), members.size(), "Network size");
+                })
+                .and("ChainLevelAccess reads the same block states and block entities as the level", () -> {
+                    ChainLevelAccess access = new ChainLevelAccess(level);
+                    for (BlockPos pos : members) {
+                        helper.assertTrue(access.getBlockState(pos) == level.getBlockState(pos),
+                                "Block state differs at " + pos);
+                        helper.assertTrue(access.getBlockEntity(pos.asLong()) == level.getBlockEntity(pos),
+                                "Block entity differs at " + pos);
+                        for (Direction dir : Direction.values()) {
+                            BlockPos neighbor = pos.relative(dir);
+                            helper.assertTrue(access.getBlockState(neighbor) == level.getBlockState(neighbor),
+                                    "Block state differs at " + neighbor);
+                        }
+                    }
+                })
+                .and("The network passes are timed with and without ChainLevelAccess", () -> {
+                    ChainNetworkManager manager = ChainNetworkManager.get(level);
+                    BlockPos start = members.getFirst();
+                    int power = level.getBlockState(start).getValue(RedstoneChainBlock.POWER);
+
+                    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                        timePasses(helper, manager, start, false, members.size());
+                        timePasses(helper, manager, start, true, members.size());
+                    }
+
+                    long[] uncached = new long[3];
+                    long[] cached = new long[3];
+                    for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                        add(uncached, timePasses(helper, manager, start, false, members.size()));
+                        add(cached, timePasses(helper, manager, start, true, members.size()));
+                    }
+
+                    for (BlockPos pos : members) {
+                        helper.assertValueEqual(level.getBlockState(pos).getValue(RedstoneChainBlock.POWER), power,
+                                "Power after the passes at " + pos);
+                    }
+
+                    RedstoneWire.LOGGER.info("Passes over {} chain blocks, {} rounds (us/round, level / ChainLevelAccess): "
+                                    + "rebuild {} / {}, validate {} / {}, apply {} / {}",
+                            members.size(), MEASURED_ROUNDS,
+                            perRound(uncached[0]), perRound(cached[0]),
+                            perRound(uncached[1]), perRound(cached[1]),
+                            perRound(uncached[2]), perRound(cached[2]));
+                })
+                .and("The chain line is removed again", () -> {
+                    for (BlockPos pos : members) {
+                        helper.setBlock(helper.relativePos(pos), Blocks.AIR);
+                    }
+                })
+                .then("Test succeeds", helper::succeed);
+    }
+
+    private static BlockPos placeChain(GameTestHelper helper, BlockPos relative) {
+        helper.setBlock(relative, RedstoneWire.REDSTONE_CHAIN_BLOCK.get());
+        return helper.absolutePos(relative);
+    }
+
+    // Both variants must reach the whole line, otherwise their timings are not comparable
+    private static ChainNetworkManager.PassTimings timePasses(GameTestHelper helper, ChainNetworkManager manager,
+                                                             BlockPos start, boolean chunkCache, int expectedMembers) {
+        ChainNetworkManager.PassTimings timings = manager.timePasses(start, chunkCache);
+        helper.assertTrue(timings != null, "Line has no network");
+        helper.assertValueEqual(timings.members(), expectedMembers,
+                chunkCache ? "Members reached with ChainLevelAccess" : "Members reached without ChainLevelAccess");
+        return timings;
+    }
+
+    private static void add(long[] totals, ChainNetworkManager.PassTimings timings) {
+        totals[0] += timings.rebuildNanos();
+        totals[1] += timings.validateNanos();
+        totals[2] += timings.applyNanos();
+    }
+
+    private static long perRound(long nanos) {
+        return nanos / MEASURED_ROUNDS / 1000;
+    }
+}
@@ -0,0 +1,165 @@
+package tests;
+
+import at.osa.redstonewire.RedstoneChainEntity;
+import at.osa.redstonewire.RedstoneWire;
+import net.minecraft.core.BlockPos;
+import net.minecraft.gametest.framework.GameTest;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.neoforged.neoforge.gametest.GameTestHolder;
+import net.neoforged.neoforge.gametest.PrefixGameTestTemplate;
+
+import static tests.TestHelpers.*;
+
+
+// Network merges and splits. All tests reuse the 5x5x5 coordinates structure and build a
+// row of chain blocks along the x-axis, one block above the sign on its floor:
+//
+//        x →
+//      0   1   2   3   4
+//    ┌─────────────────────
+// z 2│ C   C   C   C   C      (y = 3, redstone block on top of x = 0)
+//
+// Every step runs one tick after the previous one, so the network manager has resolved
+// the changes of a step (end of the level tick) before the next step checks them.
+@GameTestHolder("redstone_wire")
+public class ChainNetworkGameTests {
+
+    private static final int ROW_Y = 3;
+    private static final int ROW_Z = 2;
+    private static final BlockPos POWER_SOURCE = new BlockPos(0, ROW_Y + 1, ROW_Z);
+
+    @GameTest(template = "simplegametests.coordinatestest")
+    @PrefixGameTestTemplate(false)
+    public static void mergeTwoChains(GameTestHelper helper) {
+        new SpecFlow(helper)
+                .given("Two separate chains, only the first one is powered", () -> {
+                    placeChain(helper, 0);
+                    placeChain(helper, 1);
+                    placeChain(helper, 3);
+                    placeChain(helper, 4);
+                    helper.setBlock(POWER_SOURCE, Blocks.REDSTONE_BLOCK);
+                })
+                .then("Only the first chain is powered", () -> {
+                    assertSameChainNetwork(helper, chain(0), chain(3), false);
+                    assertChainPower(helper, chain(1), 15);
+                    assertChainPower(helper, chain(3), 0);
+                    assertChainPower(helper, chain(4), 0);
+                })
+                .when("I place a chain block between them", () -> placeChain(helper, 2))
+                .then("Both chains form one network", () -> {
+                    assertSameChainNetwork(helper, chain(0), chain(2), true);
+                    assertSameChainNetwork(helper, chain(0), chain(4), true);
+                })
+                .and("The whole network is powered", () -> {
+                    for (int x = 0; x < 5; x++) {
+                        assertChainPower(helper, chain(x), 15);
+                    }
+                })
+                .and("Test succeeds", helper::succeed);
+    }
+
+    @GameTest(template = "simplegametests.coordinatestest")
+    @PrefixGameTestTemplate(false)
+    public static void breakMiddleBlock(GameTestHelper helper) {
+        new SpecFlow(helper)
+                .given("A powered row of five chain blocks", () -> {
+                    for (int x = 0; x < 5; x++) {
+                        placeChain(helper, x);
+                    }
+                    helper.setBlock(POWER_SOURCE, Blocks.REDSTONE_BLOCK);
+                })
+                .then("The whole row is powered", () -> {
+                    assertSameChainNetwork(helper, chain(0), chain(4), true);
+                    assertChainPower(helper, chain(4), 15);
+                })
+                .when("I break the middle block", () -> helper.setBlock(chain(2), Blocks.AIR))
+                .then("The row splits into two networks", () ->
+                        assertSameChainNetwork(helper, chain(0), chain(4), false))
+                .and("The half touching the redstone block stays powered", () -> {
+                    assertChainPower(helper, chain(0), 15);
+                    assertChainPower(helper, chain(1), 15);
+                })
+                .and("The other half loses its power", () -> {
+                    assertChainPower(helper, chain(3), 0);
+                    assertChainPower(helper, chain(4), 0);
+                })
+                .and("Test succeeds", helper::succeed);
+    }
+
+    @GameTest(template = "simplegametests.coordinatestest")
+    @PrefixGameTestTemplate(false)
+    public static void breakBlockNextToPoweredEnd(GameTestHelper helper) {
+        var endPowerSource = new BlockPos(4, ROW_Y + 1, ROW_Z);
+
+        new SpecFlow(helper)
+                .given("A row of five chain blocks powered at its far end", () -> {
+                    for (int x = 0; x < 5; x++) {
+                        placeChain(helper, x);
+                    }
+                    helper.setBlock(endPowerSource, Blocks.REDSTONE_BLOCK);
+                })
+                .then("The whole row is powered", () -> assertChainPower(helper, chain(0), 15))
+                .when("I break the block next to the powered end", () -> helper.setBlock(chain(3), Blocks.AIR))
+                // Checked in one step: the rest of the row must not wait for a periodic validation
+                .then("The powered end is split off and the rest of the row lost its power", () -> {
+                    assertSameChainNetwork(helper, chain(0), chain(4), false);
+                    assertChainPower(helper, chain(4), 15);
+                    for (int x = 0; x < 3; x++) {
+                        assertChainPower(helper, chain(x), 0);
+                    }
+                })
+                .and("Test succeeds", helper::succeed);
+    }
+
+    @GameTest(template = "simplegametests.coordinatestest")
+    @PrefixGameTestTemplate(false)
+    public static void breakRedundantLink(GameTestHelper helper) {
+        var connectorItem = new ItemStack(RedstoneWire.REDSTONE_CHAIN_CONNECTOR.get(), 2);
+
+        new SpecFlow(helper)
+                .given("A powered row of five chain blocks", () -> {
+                    for (int x = 0; x < 5; x++) {
+                        placeChain(helper, x);
+                    }
+                    helper.setBlock(POWER_SOURCE, Blocks.REDSTONE_BLOCK);
+                })
+                .and("A cable between both ends of the row", () -> {
+                    useItemOn(helper, chain(0), connectorItem);
+                    useItemOn(helper, chain(4), connectorItem);
+                })
+                .then("The ends are connected", () -> assertChainBlocksAreConnected(helper, chain(0), chain(4)))
+                .when("I remove the cable", () -> {
+                    if (chainEntity(helper, 0) instanceof RedstoneChainEntity start) {
+                        start.removeConnection(helper.absolutePos(chain(4)));
+                    }
+                    if (chainEntity(helper, 4) instanceof RedstoneChainEntity end) {
+                        end.removeConnection(helper.absolutePos(chain(0)));
+                    }
+                })
+                .then("The row is still one network", () -> {
+                    helper.assertTrue(chainEntity(helper, 0) == null, "Uncabled chain block kept its block entity");
+                    assertSameChainNetwork(helper, chain(0), chain(4), true);
+                })
+                .and("The whole row stays powered", () -> {
+                    for (int x = 0; x < 5; x++) {
+                        assertChainPower(helper, chain(x), 15);
+                    }
+                })
+                .and("Test succeeds", helper::succeed);
+    }
+
+    private static BlockPos chain(int x) {
+        return new BlockPos(x, ROW_Y, ROW_Z);
+    }
+
+    private static BlockEntity chainEntity(GameTestHelper helper, int x) {
+        return helper.getLevel().getBlockEntity(helper.absolutePos(chain(x)));
+    }
+
+    private static void placeChain(GameTestHelper helper, int x) {
+        helper.setBlock(chain(x), RedstoneWire.REDSTONE_CHAIN_BLOCK.get());
+    }
+}
@@ -0,0 +1,196 @@
+package tests;
+
+import at.osa.redstonewire.ChainChunkTopologyPayload;
+import at.osa.redstonewire.ChainTopologyPayload;
+import at.osa.redstonewire.RedstoneChainBlock;
+import at.osa.redstonewire.RedstoneChainEntity;
+import at.osa.redstonewire.RedstoneWire;
+import io.netty.buffer.Unpooled;
+import net.minecraft.core.BlockPos;
+import net.minecraft.gametest.framework.GameTest;
+import net.minecraft.gametest.framework.GameTestHelper;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.network.VarInt;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.state.BlockState;
+import net.neoforged.neoforge.gametest.GameTestHolder;
+import net.neoforged.neoforge.gametest.PrefixGameTestTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+
+// Round trips of the data written to disk and sent to clients. Block entities and payloads
+// are created detached from the level, so the structure is not used.
+@GameTestHolder("redstone_wire")
+public class ChainSerializationGameTests {
+
+    private static final BlockPos ORIGIN = new BlockPos(100, 64, -200);
+    private static final List<BlockPos> LINKS = List.of(
+            new BlockPos(108, 64, -200),
+            new BlockPos(92, 70, -216),
+            new BlockPos(100, -30, -190));
+
+    @GameTest(template = "simplegametests.coordinatestest")
+    @PrefixGameTestTemplate(false)
+    public static void legacyConnectionsLoadAsLinks(GameTestHelper helper) {
+        var registries = helper.getLevel().registryAccess();
+
+        new SpecFlow(helper)
+                .given("A chain block entity saved with the legacy connections list", () -> {
+                    CompoundTag legacy = new CompoundTag();
+                    ListTag list = new ListTag();
+                    for (BlockPos link : LINKS) {
+                        CompoundTag posTag = new CompoundTag();
+                        posTag.putInt("x", link.getX());
+                        posTag.putInt("y", link.getY());
+                        posTag.putInt("z", link.getZ());
+                        list.add(posTag);
+                    }
+                    legacy.put("Connections", list);
+
+                    RedstoneChainEntity loaded = newChainEntity();
+                    loaded.loadWithComponents(legacy, registries);
+                    helper.assertValueEqual(loaded.getConnections(), LINKS, "Connections loaded from the legacy list");
+
+                    CompoundTag saved = loaded.saveWithoutMetadata(registries);
+                    helper.assertTrue(saved.contains("Links", Tag.TAG_LONG_ARRAY), "Saved tag has no packed links");
+                    helper.assertFalse(saved.contains("Connections"), "Saved tag still has the legacy connections list");
+                    long[] links = saved.getLongArray("Links");
+                    helper.assertValueEqual(links.length, LINKS.size(), "Number of packed links");
+                    for (int i = 0; i < links.length; i++) {
+                        helper.assertValueEqual(BlockPos.of(links[i]), LINKS.get(i), "Packed link " + i);
+                    }
+
+                    RedstoneChainEntity reloaded = newChainEntity();
+                    reloaded.loadWithComponents(saved, registries);
+                    helper.assertValueEqual(reloaded.getConnections(), LINKS, "Connections loaded from the packed links");
+                })
+                .then("Test succeeds", helper::succeed);
+    }
+
+    @GameTest(template = "simplegametests.coordinatestest")
+    @PrefixGameTestTemplate(false)
+    public static void packedLinksRoundTrip(GameTestHelper helper) {
+        var registries = helper.getLevel().registryAccess();
+
+        new SpecFlow(helper)
+                .given("A chain block entity without cables", () -> {
+                    RedstoneChainEntity empty = newChainEntity();
+                    CompoundTag saved = empty.saveWithoutMetadata(registries);
+                    helper.assertValueEqual(saved.getLongArray("Links").length, 0, "Number of packed links");
+
+                    RedstoneChainEntity reloaded = newChainEntity();
+                    reloaded.loadWithComponents(saved, registries);
+                    helper.assertTrue(reloaded.getConnections().isEmpty(), "Entity without cables loaded cables");
+                })
+                .then("Test succeeds", helper::succeed);
+    }
+
+    @GameTest(template = "simplegametests.coordinatestest")
+    @PrefixGameTestTemplate(false)
+    public static void topologyPayloadRoundTrip(GameTestHelper helper) {
+        new SpecFlow(helper)
+                .given("A short cable takes one byte per offset component", () -> {
+                    var payload = new ChainTopologyPayload(ORIGIN, List.of(ORIGIN.offset(1, -1, 2)), List.of());
+                    FriendlyByteBuf buf = encode(payload);
+                    // Position, count and offsets of the added links, count of the removed links
+                    helper.assertValueEqual(buf.readableBytes(), 8 + 1 + 3 + 1, "Encoded size");
+                    helper.assertValueEqual(ChainTopologyPayload.STREAM_CODEC.decode(buf), payload, "Decoded payload");
+                })
+                .and("Negative and large offsets survive the round trip", () -> {
+                    var payload = new ChainTopologyPayload(ORIGIN,
+                            List.of(ORIGIN.offset(-1, 0, 0), ORIGIN.offset(-64, 63, 64), ORIGIN.offset(-8192, 300, 8191)),
+                            List.of(new BlockPos(-29_999_999, -64, 29_999_999), new BlockPos(29_999_999, 319, -29_999_999)));
+                    FriendlyByteBuf buf = encode(payload);
+                    helper.assertValueEqual(ChainTopologyPayload.STREAM_CODEC.decode(buf), payload, "Decoded payload");
+                    helper.assertValueEqual(buf.readableBytes(), 0, "Unread bytes");
+                })
+                .then("Link counts the buffer cannot hold are rejected", () -> {
+                    assertRejected(helper, buf -> {
+                        buf.writeLong(ORIGIN.asLong());
+                        VarInt.write(buf, 1000);
+                        VarInt.write(buf, 0);
+                    });
+                    assertRejected(helper, buf -> {
+                        buf.writeLong(ORIGIN.asLong());
+                        VarInt.write(buf, -1);
+                    });
+                })
+                .and("Test succeeds", helper::succeed);
+    }
+
+    @GameTest(template = "simplegametests.coordinatestest")
+    @PrefixGameTestTemplate(false)
+    public static void chunkTopologyPayloadRoundTrip(GameTestHelper helper) {
+        new SpecFlow(helper)
+                .given("A chunk snapshot with blocks at the chunk corners and the world bottom", () -> {
+                    ChunkPos chunkPos = new ChunkPos(ORIGIN);
+                    BlockPos first = new BlockPos(chunkPos.getMinBlockX(), -64, chunkPos.getMinBlockZ());
+                    BlockPos second = new BlockPos(chunkPos.getMaxBlockX(), 319, chunkPos.getMaxBlockZ());
+                    BlockPos third = new BlockPos(chunkPos.getMinBlockX() + 7, 64, chunkPos.getMaxBlockZ());
+                    long[] blocks = {first.asLong(), second.asLong(), third.asLong()};
+                    int[] linkCounts = {2, 0, 1};
+                    long[] links = {
+                            second.asLong(), first.offset(-40, 100, 3).asLong(),
+                            third.offset(0, -1, 0).asLong()};
+                    var payload = new ChainChunkTopologyPayload(chunkPos, blocks, linkCounts, links);
+
+                    FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+                    ChainChunkTopologyPayload.STREAM_CODEC.encode(buf, payload);
+                    ChainChunkTopologyPayload decoded = ChainChunkTopologyPayload.STREAM_CODEC.decode(buf);
+                    helper.assertValueEqual(decoded.chunkPos(), chunkPos, "Chunk position");
+                    helper.assertTrue(Arrays.equals(decoded.blocks(), blocks), "Decoded blocks differ");
+                    helper.assertTrue(Arrays.equals(decoded.linkCounts(), linkCounts), "Decoded link counts differ");
+                    helper.assertTrue(Arrays.equals(decoded.links(), links), "Decoded links differ");
+                    helper.assertValueEqual(buf.readableBytes(), 0, "Unread bytes");
+                })
+                .and("An empty snapshot survives the round trip", () -> {
+                    var payload = ChainChunkTopologyPayload.empty(new ChunkPos(-3, 5));
+                    FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+                    ChainChunkTopologyPayload.STREAM_CODEC.encode(buf, payload);
+                    ChainChunkTopologyPayload decoded = ChainChunkTopologyPayload.STREAM_CODEC.decode(buf);
+                    helper.assertValueEqual(decoded.chunkPos(), payload.chunkPos(), "Chunk position");
+                    helper.assertValueEqual(decoded.blocks().length, 0, "Number of blocks");
+                })
+                .then("Block counts the buffer cannot hold are rejected", () -> {
+                    FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+                    buf.writeLong(new ChunkPos(ORIGIN).toLong());
+                    VarInt.write(buf, 1000);
+                    try {
+                        ChainChunkTopologyPayload.STREAM_CODEC.decode(buf);
+                        helper.fail("Block count larger than the buffer was accepted");
+                    } catch (IllegalArgumentException expected) {
+                        // Rejected as expected
+                    }
+                })
+                .and("Test succeeds", helper::succeed);
+    }
+
+    private static FriendlyByteBuf encode(ChainTopologyPayload payload) {
+        FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+        ChainTopologyPayload.STREAM_CODEC.encode(buf, payload);
+        return buf;
+    }
+
+    private static void assertRejected(GameTestHelper helper, Consumer<FriendlyByteBuf> writer) {
+        FriendlyByteBuf buf = new FriendlyByteBuf(Unpooled.buffer());
+        writer.accept(buf);
+        try {
+            ChainTopologyPayload.STREAM_CODEC.decode(buf);
+            helper.fail("Link count larger than the buffer was accepted");
+        } catch (IllegalArgumentException expected) {
+            // Rejected as expected
+        }
+    }
+
+    private static RedstoneChainEntity newChainEntity() {
+        BlockState state = RedstoneWire.REDSTONE_CHAIN_BLOCK.get().defaultBlockState()
+                .setValue(RedstoneChainBlock.CABLED, true);
+        return new RedstoneChainEntity(ORIGIN, state);
+    }
+}
@@ -1,5 +1,7 @@
 package tests;
 
+import at.osa.redstonewire.ChainNetworkManager;
+import at.osa.redstonewire.RedstoneChainBlock;
 import at.osa.redstonewire.RedstoneChainEntity;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
@@ -165,4 +167,50 @@ public class TestHelpers {
         helper.assertTrue(chain2HasConnectionToChain1,
                 "Chain at " + pos2 + " does not have a connection to " + pos1);
     }
+
+    /**
+     * Asserts the power level of a RedstoneChain block.
+     *
+     * @param helper   The GameTestHelper
+     * @param pos      Chain block position
+     * @param expected Expected power level (0-15)
+     */
+    public static void assertChainPower(GameTestHelper helper, BlockPos pos, int expected) {
+        var blockState = helper.getBlockState(pos);
+        if (!(blockState.getBlock() instanceof RedstoneChainBlock)) {
+            helper.fail("Block at " + pos + " is not a RedstoneChainBlock but a " + blockState.getBlock().getName());
+            return;
+        }
+        helper.assertValueEqual(blockState.getValue(RedstoneChainBlock.POWER), expected, "Power of chain at " + pos);
+    }
+
+    /**
+     * Returns the ID of the network a RedstoneChain block belongs to.
+     *
+     * @param helper The GameTestHelper
+     * @param pos    Chain block position
+     */
+    public static int getChainNetworkId(GameTestHelper helper, BlockPos pos) {
+        return ChainNetworkManager.get(helper.getLevel()).getNetworkId(helper.absolutePos(pos));
+    }
+
+    /**
+     * Asserts whether two RedstoneChain blocks belong to the same network.
+     *
+     * @param helper   The GameTestHelper
+     * @param pos1     First chain block position
+     * @param pos2     Second chain block position
+     * @param expected Whether both blocks should share a network
+     */
+    public static void assertSameChainNetwork(GameTestHelper helper, BlockPos pos1, BlockPos pos2, boolean expected) {
+        int network1 = getChainNetworkId(helper, pos1);
+        int network2 = getChainNetworkId(helper, pos2);
+        helper.assertFalse(network1 == ChainNetworkManager.NO_NETWORK, "Chain at " + pos1 + " has no network");
+        helper.assertFalse(network2 == ChainNetworkManager.NO_NETWORK, "Chain at " + pos2 + " has no network");
+        if (expected) {
+            helper.assertTrue(network1 == network2, "Chains at " + pos1 + " and " + pos2 + " are in different networks");
+        } else {
+            helper.assertFalse(network1 == network2, "Chains at " + pos1 + " and " + pos2 + " are in the same network");
+        }
+    }
 }